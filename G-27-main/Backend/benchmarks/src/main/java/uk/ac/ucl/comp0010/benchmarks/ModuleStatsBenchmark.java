@@ -0,0 +1,73 @@
+package uk.ac.ucl.comp0010.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ucl.comp0010.dto.ModuleStatistics;
+import uk.ac.ucl.comp0010.model.ModuleStats;
+
+/**
+ * Benchmarks the materialised module statistics that the module detail page reads in place of
+ * building the grade histogram, for a module with a given number of grades.
+ * Both the upkeep on every grade write and the read on every page view should stay flat as the
+ * module grows.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModuleStatsBenchmark {
+  /**
+   * The number of grades already recorded for the module.
+   */
+  @Param({"10", "1000", "100000"})
+  private int grades;
+
+  private ModuleStats stats;
+  private int score;
+
+  /**
+   * Builds the statistics of a module with scores spread over every band.
+   */
+  @Setup
+  public void setup() {
+    stats = new ModuleStats("BENCH");
+    for (int i = 0; i < grades; i++) {
+      stats.addScore(i % 101);
+    }
+  }
+
+  /**
+   * Measures replacing a grade, which takes the old score off the statistics and adds the new
+   * one. The removed score is never the lowest or highest, so no range query would be needed.
+   *
+   * @return whether the range went stale, so the call is not optimised away
+   */
+  @Benchmark
+  public boolean replaceScore() {
+    score = score == 50 ? 51 : 50;
+    stats.addScore(score);
+    return stats.removeScore(score);
+  }
+
+  /**
+   * Measures reading the statistics for the module detail page.
+   *
+   * @return the statistics, so the call is not optimised away
+   */
+  @Benchmark
+  public ModuleStatistics toStatistics() {
+    return stats.toStatistics();
+  }
+}
@@ -0,0 +1,95 @@
+package uk.ac.ucl.comp0010.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ucl.comp0010.exceptions.NoGradeAvailableException;
+import uk.ac.ucl.comp0010.exceptions.NoRegistrationException;
+import uk.ac.ucl.comp0010.model.Grade;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Registration;
+import uk.ac.ucl.comp0010.model.Student;
+
+/**
+ * Benchmarks the Student methods that run on every grade and registration request, for a student
+ * registered for and graded in a given number of modules.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StudentBenchmark {
+  /**
+   * The number of modules the student is registered for, each with one grade.
+   */
+  @Param({"10", "1000", "100000"})
+  private int grades;
+
+  private Student student;
+  private Module lastModule;
+  private Module extraModule;
+
+  /**
+   * Builds the student, registering them for and grading them in every module.
+   */
+  @Setup
+  public void setup() {
+    student = new Student(1L, "Bench", "Mark", "benchmark", "benchmark@example.com");
+    for (int i = 0; i < grades; i++) {
+      Module module = new Module("BENCH" + i, "Benchmark Module " + i, false);
+      student.registerModule(module);
+      student.addGrade(new Grade(module, i % 101));
+      lastModule = module;
+    }
+    extraModule = new Module("EXTRA", "Extra Module", false);
+  }
+
+  /**
+   * Measures computing the student's average from the running totals.
+   *
+   * @return the average, so the call is not optimised away
+   */
+  @Benchmark
+  public float computeAverage() {
+    return student.computeAverage();
+  }
+
+  /**
+   * Measures finding the grade of the module the student registered for last, which is the
+   * worst case for a search through the registrations and grades.
+   *
+   * @return the grade, so the call is not optimised away
+   * @throws NoGradeAvailableException never, as every module has a grade
+   * @throws NoRegistrationException never, as the student is registered for the module
+   */
+  @Benchmark
+  public Grade getGrade() throws NoGradeAvailableException, NoRegistrationException {
+    return student.getGrade(lastModule);
+  }
+
+  /**
+   * Measures registering the student for one more module. The registration is taken off the end
+   * of the list again, so the list keeps its size across invocations.
+   *
+   * @return the registration, so the call is not optimised away
+   */
+  @Benchmark
+  public Registration registerModule() {
+    Registration registration = student.registerModule(extraModule);
+    List<Registration> registrations = student.getStudentRegistration();
+    registrations.remove(registrations.size() - 1);
+    return registration;
+  }
+}
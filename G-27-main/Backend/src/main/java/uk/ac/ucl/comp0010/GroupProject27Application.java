@@ -2,11 +2,13 @@ package uk.ac.ucl.comp0010;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * The application class for SpringBoot to use.
  */
 @SpringBootApplication
+@EnableScheduling
 public class GroupProject27Application {
   /**
    * This is the main function that initialises the model for the application.
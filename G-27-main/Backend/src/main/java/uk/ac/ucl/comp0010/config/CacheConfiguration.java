@@ -0,0 +1,46 @@
+package uk.ac.ucl.comp0010.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the in-memory read caches.
+ * Each cache is a Caffeine cache with its own size and time-to-live, given as a Caffeine spec
+ * string. Specs that include recordStats publish their hits, misses and evictions as the
+ * cache.gets and cache.evictions metrics under /actuator/metrics.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+  /**
+   * The cache of modules by code.
+   */
+  public static final String MODULES = "modules";
+  /**
+   * The cache of student personal details by ID.
+   */
+  public static final String STUDENT_SUMMARIES = "studentSummaries";
+
+  /**
+   * Registers the caches with the Caffeine cache manager that Spring Boot creates.
+   *
+   * @param modulesSpec the Caffeine spec of the module cache
+   * @param studentSummariesSpec the Caffeine spec of the student summary cache
+   * @return the customizer that registers the caches
+   */
+  @Bean
+  public CacheManagerCustomizer<CaffeineCacheManager> caffeineCaches(
+      @Value("${cache.modules.spec}") String modulesSpec,
+      @Value("${cache.student-summaries.spec}") String studentSummariesSpec) {
+    return cacheManager -> {
+      cacheManager.registerCustomCache(MODULES, Caffeine.from(modulesSpec).build());
+      cacheManager.registerCustomCache(STUDENT_SUMMARIES,
+          Caffeine.from(studentSummariesSpec).build());
+    };
+  }
+}
@@ -0,0 +1,119 @@
+package uk.ac.ucl.comp0010.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Filter that limits the number of requests being served at once to the size of the connection
+ * pool.
+ * With open session in view a request holds its database connection until the response is
+ * written, so any request beyond the pool size would only wait inside the pool. When requests
+ * run on virtual threads there is no thread pool to cap them, so thousands of requests could
+ * queue on the connection pool and time out there. Instead they wait here on a fair semaphore,
+ * which serves them in arrival order, and are turned away with HTTP status 503 (SERVICE
+ * UNAVAILABLE) if no permit frees up in time. The actuator endpoints are not limited, so health
+ * checks still answer while the application is saturated. Neither are the endpoints of the grade
+ * ingestion queue, which never use a connection and turn submissions away with 429 themselves
+ * when the queue is full, so a burst of submissions is absorbed by the queue instead of waiting
+ * here.
+ * A request that goes on asynchronously, such as an export streamed from a database cursor, keeps
+ * its permit until its response is complete rather than until the request thread returns, so the
+ * statements it runs on the async executor are limited along with everything else.
+ */
+@Component
+public class DatabaseBulkheadFilter extends OncePerRequestFilter {
+  private final Semaphore permits;
+  private final long timeoutNanos;
+
+  /**
+   * Creates the filter with one permit per pooled connection.
+   *
+   * @param permits the maximum number of requests served at once, which is the pool size
+   * @param timeout how long a request may wait for a permit before it is turned away
+   */
+  public DatabaseBulkheadFilter(@Value("${db.pool-size}") int permits,
+      @Value("${db.bulkhead.timeout}") Duration timeout) {
+    this.permits = new Semaphore(permits, true);
+    this.timeoutNanos = timeout.toNanos();
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    String path = request.getRequestURI().substring(request.getContextPath().length());
+    return path.startsWith("/actuator") || path.equals("/grades/submit")
+        || path.startsWith("/grades/submissions/");
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    boolean acquired;
+    try {
+      acquired = permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      acquired = false;
+    }
+    if (!acquired) {
+      response.setHeader("Error-Message", "The server is busy, please retry");
+      response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+      return;
+    }
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      if (request.isAsyncStarted()) {
+        request.getAsyncContext().addListener(new PermitRelease());
+      } else {
+        permits.release();
+      }
+    }
+  }
+
+  /**
+   * Releases the permit of a request that went on asynchronously once its response is complete,
+   * whether it completed normally, failed or timed out.
+   */
+  private final class PermitRelease implements AsyncListener {
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+      release();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+      release();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+      release();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+      event.getAsyncContext().addListener(this);
+    }
+
+    private void release() {
+      if (released.compareAndSet(false, true)) {
+        permits.release();
+      }
+    }
+  }
+}
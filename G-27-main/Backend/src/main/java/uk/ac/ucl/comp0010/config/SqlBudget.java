@@ -0,0 +1,28 @@
+package uk.ac.ucl.comp0010.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Sets the most SQL statements a controller method may send while serving one request, including
+ * any lazy loading while its response is written.
+ * The budget should not depend on how much data the request touches, so a loop that starts
+ * loading rows one at a time goes over it. Requests handled by methods without a budget, such as
+ * the Spring Data REST endpoints, are held to the sql.budget.default property instead.
+ *
+ * @see SqlStatementMetricsFilter
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SqlBudget {
+  /**
+   * The most statements the method may send.
+   *
+   * @return the budget
+   */
+  int value();
+}
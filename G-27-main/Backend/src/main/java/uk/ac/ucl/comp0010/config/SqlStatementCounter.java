@@ -0,0 +1,68 @@
+package uk.ac.ucl.comp0010.config;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the SQL statements that Hibernate prepares on the current thread.
+ * The counter registers itself as Hibernate's statement inspector, and only counts between
+ * {@link #start()} and {@link #stop()}, so statements sent outside a request, such as by the
+ * scheduled reconciliation jobs, are not counted. Counts can be nested, so a test can count the
+ * statements of a whole request while the request filter counts them too. A JDBC batch is
+ * prepared once, so it counts as a single statement however many rows it writes.
+ */
+@Component
+public class SqlStatementCounter implements StatementInspector, HibernatePropertiesCustomizer {
+  private final ThreadLocal<Deque<int[]>> counts = new ThreadLocal<>();
+
+  @Override
+  public void customize(Map<String, Object> hibernateProperties) {
+    hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+  }
+
+  @Override
+  public String inspect(String sql) {
+    Deque<int[]> running = counts.get();
+    if (running != null) {
+      for (int[] count : running) {
+        count[0]++;
+      }
+    }
+    return sql;
+  }
+
+  /**
+   * Starts a count from zero on the current thread, inside any count already running.
+   */
+  public void start() {
+    Deque<int[]> running = counts.get();
+    if (running == null) {
+      running = new ArrayDeque<>();
+      counts.set(running);
+    }
+    running.push(new int[1]);
+  }
+
+  /**
+   * Stops the count started most recently on the current thread.
+   *
+   * @return the number of statements prepared since the matching {@link #start()}, or 0 if no
+   *         count is running
+   */
+  public int stop() {
+    Deque<int[]> running = counts.get();
+    if (running == null) {
+      return 0;
+    }
+    int[] count = running.pop();
+    if (running.isEmpty()) {
+      counts.remove();
+    }
+    return count[0];
+  }
+}
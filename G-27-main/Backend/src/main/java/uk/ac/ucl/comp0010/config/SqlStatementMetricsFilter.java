@@ -0,0 +1,111 @@
+package uk.ac.ucl.comp0010.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Filter that records how many SQL statements each request sent, as the
+ * http.server.requests.sql distribution summary, and checks the count against the budget of the
+ * controller method that handled it.
+ * It is tagged with the same method, uri and status as Spring's http.server.requests timer, so
+ * the statement count of an endpoint can be read next to its latency. The uri is the matched
+ * path pattern rather than the path itself, so each endpoint has one series however many IDs it
+ * is called with. The actuator endpoints are not recorded.
+ * A request over its {@link SqlBudget}, or over sql.budget.default if its handler has none, is
+ * logged and counted as http.server.requests.sql.over.budget. If sql.budget.fail is set, which
+ * the test run does, the request also fails with an {@link IllegalStateException}, so a change
+ * that adds statements to an endpoint breaks the build instead of slowing production down.
+ */
+@Component
+public class SqlStatementMetricsFilter extends OncePerRequestFilter {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SqlStatementMetricsFilter.class);
+
+  private final SqlStatementCounter counter;
+  private final MeterRegistry meterRegistry;
+  private final int defaultBudget;
+  private final boolean failOverBudget;
+
+  /**
+   * Creates the filter.
+   *
+   * @param counter the counter of the statements Hibernate prepares
+   * @param meterRegistry the registry to record the counts in
+   * @param defaultBudget the budget of requests whose handler has no {@link SqlBudget}
+   * @param failOverBudget whether a request over its budget fails rather than only being logged
+   */
+  public SqlStatementMetricsFilter(SqlStatementCounter counter, MeterRegistry meterRegistry,
+      @Value("${sql.budget.default}") int defaultBudget,
+      @Value("${sql.budget.fail:false}") boolean failOverBudget) {
+    this.counter = counter;
+    this.meterRegistry = meterRegistry;
+    this.defaultBudget = defaultBudget;
+    this.failOverBudget = failOverBudget;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return request.getRequestURI().startsWith(request.getContextPath() + "/actuator");
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    counter.start();
+    String overBudget;
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      overBudget = record(request, response, counter.stop());
+    }
+    if (overBudget != null && failOverBudget) {
+      throw new IllegalStateException(overBudget);
+    }
+  }
+
+  private String record(HttpServletRequest request, HttpServletResponse response,
+      int statements) {
+    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+    DistributionSummary.builder("http.server.requests.sql")
+        .description("SQL statements sent while serving a request")
+        .baseUnit("statements")
+        .tag("method", request.getMethod())
+        .tag("uri", uri)
+        .tag("status", String.valueOf(response.getStatus()))
+        .register(meterRegistry)
+        .record(statements);
+
+    int budget = budgetOf(request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE));
+    if (statements <= budget) {
+      return null;
+    }
+    meterRegistry.counter("http.server.requests.sql.over.budget",
+        "method", request.getMethod(), "uri", uri).increment();
+    String message = request.getMethod() + " " + uri + " sent " + statements
+        + " SQL statements, over its budget of " + budget;
+    LOGGER.warn(message);
+    return message;
+  }
+
+  private int budgetOf(Object handler) {
+    if (handler instanceof HandlerMethod method) {
+      SqlBudget budget = method.getMethodAnnotation(SqlBudget.class);
+      if (budget != null) {
+        return budget.value();
+      }
+    }
+    return defaultBudget;
+  }
+}
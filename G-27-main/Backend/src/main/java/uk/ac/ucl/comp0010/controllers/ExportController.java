@@ -0,0 +1,138 @@
+package uk.ac.ucl.comp0010.controllers;
+
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import uk.ac.ucl.comp0010.config.SqlBudget;
+import uk.ac.ucl.comp0010.service.ExportService;
+import uk.ac.ucl.comp0010.service.ExportService.Format;
+import uk.ac.ucl.comp0010.service.LookupService;
+
+/**
+ * Controller class responsible for exporting grades, module rosters and student transcripts as
+ * CSV or NDJSON files.
+ * The request thread only checks that the module or student exists; the rows are then written
+ * on Spring MVC's async executor straight from a database cursor, so an export of any size is
+ * sent without being held in memory. The export's own statements run after the request thread
+ * has returned, so they are outside the SQL budget. They still count against the database
+ * bulkhead, which keeps the request's permit until the export has been written, so exports
+ * cannot hold more connections than the pool has and an export that finds the bulkhead full is
+ * turned away with 503 before anything is streamed.
+ */
+@RestController
+public class ExportController {
+  private final ExportService exportService;
+  private final LookupService lookupService;
+
+  /**
+   * Constructs a new ExportController with the specified services.
+   *
+   * @param exportService the service that writes the exports
+   * @param lookupService the service that caches modules and students' personal details
+   */
+  public ExportController(ExportService exportService, LookupService lookupService) {
+    this.exportService = exportService;
+    this.lookupService = lookupService;
+  }
+
+  /**
+   * Handles HTTP GET requests to export every grade, in grade ID order.
+   *
+   * @param format The format of the export, csv (the default) or ndjson.
+   * @return A {@link ResponseEntity} streaming the grades as an attachment, or HTTP status 400
+   *         (BAD_REQUEST) if the format is not known.
+   */
+  @SqlBudget(0)
+  @GetMapping(value = "/grades/export")
+  public ResponseEntity<StreamingResponseBody> exportGrades(
+      @RequestParam(defaultValue = "csv") String format) {
+    Format exportFormat = parse(format);
+    if (exportFormat == null) {
+      return ResponseEntity.badRequest().build();
+    }
+    return attachment("grades", exportFormat,
+        out -> exportService.writeGrades(exportFormat, out));
+  }
+
+  /**
+   * Handles HTTP GET requests to export the roster of a module, which is every registered
+   * student with their score in the module, in student ID order. Students without a grade have
+   * an empty score.
+   *
+   * @param moduleCode The code of the module.
+   * @param format The format of the export, csv (the default) or ndjson.
+   * @return A {@link ResponseEntity} streaming the roster as an attachment, HTTP status 400
+   *         (BAD_REQUEST) if the format is not known, or HTTP status 404 (NOT_FOUND) if there is
+   *         no module with the code.
+   */
+  @SqlBudget(1)
+  @GetMapping(value = "/modules/moduleDetails/{moduleCode}/export")
+  public ResponseEntity<StreamingResponseBody> exportRoster(@PathVariable String moduleCode,
+      @RequestParam(defaultValue = "csv") String format) {
+    Format exportFormat = parse(format);
+    if (exportFormat == null) {
+      return ResponseEntity.badRequest().build();
+    }
+    try {
+      lookupService.getModule(moduleCode);
+    } catch (NoSuchElementException exception) {
+      return ResponseEntity.notFound().build();
+    }
+    return attachment("roster-" + moduleCode, exportFormat,
+        out -> exportService.writeRoster(moduleCode, exportFormat, out));
+  }
+
+  /**
+   * Handles HTTP GET requests to export the transcript of a student, which is every module they
+   * are registered for with their score, in module code order. Modules without a grade have an
+   * empty score.
+   *
+   * @param id The ID of the student.
+   * @param format The format of the export, csv (the default) or ndjson.
+   * @return A {@link ResponseEntity} streaming the transcript as an attachment, HTTP status 400
+   *         (BAD_REQUEST) if the format is not known, or HTTP status 404 (NOT_FOUND) if there is
+   *         no student with the ID.
+   */
+  @SqlBudget(1)
+  @GetMapping(value = "/students/studentDetail/{id}/export")
+  public ResponseEntity<StreamingResponseBody> exportTranscript(@PathVariable long id,
+      @RequestParam(defaultValue = "csv") String format) {
+    Format exportFormat = parse(format);
+    if (exportFormat == null) {
+      return ResponseEntity.badRequest().build();
+    }
+    try {
+      lookupService.getStudentSummary(id);
+    } catch (NoSuchElementException exception) {
+      return ResponseEntity.notFound().build();
+    }
+    return attachment("transcript-" + id, exportFormat,
+        out -> exportService.writeTranscript(id, exportFormat, out));
+  }
+
+  private static Format parse(String format) {
+    try {
+      return Format.valueOf(format.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException exception) {
+      return null;
+    }
+  }
+
+  private static ResponseEntity<StreamingResponseBody> attachment(String name, Format format,
+      StreamingResponseBody body) {
+    ContentDisposition disposition = ContentDisposition.attachment()
+        .filename(name + "." + format.getExtension())
+        .build();
+    return ResponseEntity.ok()
+        .contentType(format.getMediaType())
+        .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+        .body(body);
+  }
+}
@@ -2,23 +2,39 @@ package uk.ac.ucl.comp0010.controllers;
 
 import static java.lang.Integer.parseInt;
 
+import java.net.URI;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.Optional;
+import java.util.OptionalLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import uk.ac.ucl.comp0010.config.SqlBudget;
+import uk.ac.ucl.comp0010.dto.GradeTicket;
+import uk.ac.ucl.comp0010.dto.GradeUpload;
+import uk.ac.ucl.comp0010.dto.GradeUploadReport;
+import uk.ac.ucl.comp0010.dto.GradeView;
+import uk.ac.ucl.comp0010.dto.KeysetPage;
+import uk.ac.ucl.comp0010.dto.RecordedGrade;
+import uk.ac.ucl.comp0010.exceptions.NoRegistrationException;
 import uk.ac.ucl.comp0010.model.Grade;
-import uk.ac.ucl.comp0010.model.Module;
-import uk.ac.ucl.comp0010.model.Student;
 import uk.ac.ucl.comp0010.repository.GradeRepository;
-import uk.ac.ucl.comp0010.repository.ModuleRepository;
-import uk.ac.ucl.comp0010.repository.StudentRepository;
+import uk.ac.ucl.comp0010.service.GradeIngestQueue;
+import uk.ac.ucl.comp0010.service.GradeService;
 
 /**
  * Controller class responsible for managing operations related to grades.
@@ -27,22 +43,49 @@ import uk.ac.ucl.comp0010.repository.StudentRepository;
  */
 @RestController
 public class GradeController {
-  private final StudentRepository studentRepository;
-  private final ModuleRepository moduleRepository;
+  private final GradeService gradeService;
   private final GradeRepository gradeRepository;
+  private final GradeIngestQueue gradeIngestQueue;
+  private final int maxPageSize;
   
   /**
-   * Constructs a new GradeController with the specified repositories.
+   * Constructs a new GradeController with the specified service.
    *
-   * @param studentRepository the repository for accessing student data
-   * @param moduleRepository the repository for accessing module data
-   * @param gradeRepository the repository for accessing grade data
+   * @param gradeService the service that records and removes grades
+   * @param gradeRepository the repository for reading grades
+   * @param gradeIngestQueue the queue of grades written asynchronously
+   * @param maxPageSize the largest page of grades a client may ask for
    */
-  public GradeController(StudentRepository studentRepository, ModuleRepository moduleRepository,
-      GradeRepository gradeRepository) {
-    this.studentRepository = studentRepository;
-    this.moduleRepository = moduleRepository;
+  public GradeController(GradeService gradeService, GradeRepository gradeRepository,
+      GradeIngestQueue gradeIngestQueue, @Value("${paging.max-page-size:500}") int maxPageSize) {
+    this.gradeService = gradeService;
     this.gradeRepository = gradeRepository;
+    this.gradeIngestQueue = gradeIngestQueue;
+    this.maxPageSize = maxPageSize;
+  }
+
+  /**
+   * Lists the grades together with the name of their student and module, one page at a time.
+   * Each page is read with a single query that seeks past the last grade ID of the previous page,
+   * so a page costs the same however far into the list it is.
+   *
+   * @param after the grade ID to list the grades after, which is the nextCursor of the previous
+   *              page, or 0 for the first page
+   * @param size the number of grades per page, capped at the configured maximum
+   * @return a ResponseEntity containing the page, or HTTP status 400 (BAD_REQUEST) if the size is
+   *         not positive
+   */
+  @SqlBudget(1)
+  @GetMapping(path = "/grades/view")
+  public ResponseEntity<KeysetPage<GradeView, Long>> viewGrades(
+      @RequestParam(defaultValue = "0") long after,
+      @RequestParam(defaultValue = "${paging.default-page-size:20}") int size) {
+    if (size < 1) {
+      return ResponseEntity.badRequest().build();
+    }
+    int pageSize = Math.min(size, maxPageSize);
+    List<GradeView> rows = gradeRepository.findViewsAfter(after, Limit.of(pageSize + 1));
+    return ResponseEntity.ok(KeysetPage.of(rows, pageSize, GradeView::id));
   }
   
   /**
@@ -56,37 +99,102 @@ public class GradeController {
    *               - "student_id": the ID of the student
    *               - "module_code": the code of the module
    *               - "score": the grade score
-   * @return a ResponseEntity containing the created Grade object
+   * @return a ResponseEntity containing the stored Grade object, with a Grade-Outcome header of
+   *         "created" or "updated" depending on whether the student already had a grade for the
+   *         module, or HTTP status 409 (CONFLICT) if a concurrent request created the same grade
    */
+  @SqlBudget(12)
   @RequestMapping(path = {"/grades/addGrade", "/students/studentDetail/addGrade"},
       method = RequestMethod.POST)
   public ResponseEntity<Grade> addGrade(@RequestBody Map<String, String> params) {
-    Student student;
-    Module module;
+    RecordedGrade recorded;
     try {
-      student = studentRepository.findById(Long.valueOf(params.get("student_id")))
-        .orElseThrow();
-      module = moduleRepository.findById(params.get("module_code")).orElseThrow();
-      if (student.getStudentRegistration().stream().noneMatch(
-          registration -> registration.getModule().equals(module))) {
-        return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
-      }
+      recorded = gradeService.addGrade(Long.parseLong(params.get("student_id")),
+          params.get("module_code"), parseInt(params.get("score")));
+    } catch (NoRegistrationException exception) {
+      return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
     } catch (NoSuchElementException exception) {
       // If the provided student id or module code don't have entities existing in the database
       return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+    } catch (DataIntegrityViolationException exception) {
+      return ResponseEntity.status(HttpStatus.CONFLICT)
+          .header("Error-Message", "Grade was recorded by another request, please retry")
+          .build();
+    }
+    return ResponseEntity.ok()
+        .header("Grade-Outcome", recorded.created() ? "created" : "updated")
+        .body(recorded.grade());
+  }
+  
+  /**
+   * Adds a batch of grades, given as a JSON array of objects with the same fields as the
+   * parameters of {@link #addGrade(Map)}.
+   * Rows that cannot be applied are reported rather than failing the whole batch.
+   *
+   * @param uploads the rows of the batch
+   * @return a ResponseEntity containing the outcome of every row
+   */
+  @SqlBudget(25)
+  @PostMapping(path = "/grades/addGrades", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<GradeUploadReport> addGrades(@RequestBody List<GradeUpload> uploads) {
+    return ResponseEntity.ok(gradeService.addGrades(uploads));
+  }
+
+  /**
+   * Adds a batch of grades, given as CSV with one student_id,module_code,score row per line and
+   * an optional header line.
+   * Rows that cannot be applied are reported rather than failing the whole batch.
+   *
+   * @param csv the CSV document
+   * @return a ResponseEntity containing the outcome of every row
+   */
+  @SqlBudget(25)
+  @PostMapping(path = "/grades/addGrades", consumes = "text/csv")
+  public ResponseEntity<GradeUploadReport> addGradesCsv(@RequestBody String csv) {
+    return ResponseEntity.ok(gradeService.addGrades(GradeUpload.parseCsv(csv)));
+  }
+
+  /**
+   * Queues a grade to be recorded asynchronously, for bursts of submissions that would otherwise
+   * each hold a connection through the statements of {@link #addGrade(Map)}.
+   * The body has the same fields as a row of a batch upload. The queued grades are recorded in
+   * batches by a single writer, and the outcome can be read from
+   * {@link #viewSubmission(long)} under the returned ticket.
+   *
+   * @param upload the grade to record
+   * @return a ResponseEntity with HTTP status 202 (ACCEPTED) containing the ticket and a Location
+   *         header pointing at its state, HTTP status 400 (BAD_REQUEST) if a field is missing, or
+   *         HTTP status 429 (TOO_MANY_REQUESTS) with a Retry-After header if the queue is full
+   */
+  @SqlBudget(0)
+  @PostMapping(path = "/grades/submit", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<GradeTicket> submitGrade(@RequestBody GradeUpload upload) {
+    if (upload.studentId() == null || upload.moduleCode() == null || upload.score() == null) {
+      return ResponseEntity.badRequest().build();
+    }
+    OptionalLong ticket = gradeIngestQueue.submit(upload);
+    if (ticket.isEmpty()) {
+      return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+          .header(HttpHeaders.RETRY_AFTER, "1")
+          .header("Error-Message", "Too many grades are waiting to be recorded, please retry")
+          .build();
     }
-    
-    Grade grade = new Grade();
-    grade.setModule(module);
-    grade.setScore(parseInt((params.get("score"))));
-    
-    // Allows for updates without allowing duplicate grades for a particular module, student pair
-    Optional<Grade> alreadyExists = gradeRepository.findByModuleAndStudent(module, student);
-    alreadyExists.ifPresent(gradeRepository::delete);
-    
-    student.addGrade(grade);
-    grade = gradeRepository.save(grade);
-    return ResponseEntity.ok(grade);
+    return ResponseEntity.accepted()
+        .location(URI.create("/grades/submissions/" + ticket.getAsLong()))
+        .body(new GradeTicket(ticket.getAsLong(), GradeTicket.Status.QUEUED));
+  }
+
+  /**
+   * Returns the state of a grade queued by {@link #submitGrade(GradeUpload)}.
+   *
+   * @param ticket the ticket of the submission
+   * @return a ResponseEntity containing the state, or HTTP status 404 (NOT_FOUND) if there is no
+   *         such ticket or it has expired
+   */
+  @SqlBudget(0)
+  @GetMapping(path = "/grades/submissions/{ticket}")
+  public ResponseEntity<GradeTicket> viewSubmission(@PathVariable long ticket) {
+    return ResponseEntity.of(gradeIngestQueue.status(ticket));
   }
   
   /**
@@ -95,15 +203,14 @@ public class GradeController {
    * @param id The unique long identifier that represents a grade
    * @return A responseEntity describing the success of the operation
    */
+  @SqlBudget(11)
   @DeleteMapping(value = "/grades/{id}")
   public ResponseEntity<Grade> deleteGrade(@PathVariable long id) {
-    Grade retrievedGrade;
     try {
-      retrievedGrade = gradeRepository.findById(id).get();
+      gradeService.deleteGrade(id);
     } catch (NoSuchElementException exception) {
       return ResponseEntity.notFound().build();
     }
-    gradeRepository.delete(retrievedGrade);
     return ResponseEntity.ok().build();
   }
 }
\ No newline at end of file
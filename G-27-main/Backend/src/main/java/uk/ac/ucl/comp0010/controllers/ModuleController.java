@@ -1,22 +1,39 @@
 package uk.ac.ucl.comp0010.controllers;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.Reader;
 import java.util.List;
-import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import uk.ac.ucl.comp0010.model.Grade;
+import org.springframework.web.context.request.WebRequest;
+import uk.ac.ucl.comp0010.config.SqlBudget;
+import uk.ac.ucl.comp0010.dto.ImportReport;
+import uk.ac.ucl.comp0010.dto.KeysetPage;
+import uk.ac.ucl.comp0010.dto.ModuleDetails;
+import uk.ac.ucl.comp0010.dto.ModuleStatistics;
+import uk.ac.ucl.comp0010.dto.RegisteredStudent;
 import uk.ac.ucl.comp0010.model.Module;
-import uk.ac.ucl.comp0010.model.Registration;
-import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.model.ModuleStats;
+import uk.ac.ucl.comp0010.repository.GradeRepository;
 import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.repository.ModuleStatsRepository;
 import uk.ac.ucl.comp0010.repository.RegistrationRepository;
+import uk.ac.ucl.comp0010.service.ImportService;
+import uk.ac.ucl.comp0010.service.LookupService;
 
 /**
  * Controller class responsible for managing operations related to Modules.
@@ -27,24 +44,135 @@ public class ModuleController {
   private final ModuleRepository moduleRepository;
 
   private final RegistrationRepository registrationRepository;
+
+  private final GradeRepository gradeRepository;
+
+  private final ModuleStatsRepository moduleStatsRepository;
+
+  private final LookupService lookupService;
+
+  private final ImportService importService;
+
+  private final int maxPageSize;
+
+  private final DistributionSummary registrationsScanned;
+
+  private final DistributionSummary gradesFound;
+
+  private final Counter materialisedStatistics;
+
+  private final Counter aggregatedStatistics;
   
   /**
    * Constructs a new ModuleController, with the required repository classes as endpoints.
    *
    * @param moduleRepository the repository for accessing Module data
+   * @param registrationRepository the repository for accessing Registration data
+   * @param gradeRepository the repository for accessing Grade data
+   * @param moduleStatsRepository the repository for accessing materialised module statistics
+   * @param lookupService the service that caches modules
+   * @param importService the service that loads modules in bulk
+   * @param maxPageSize the largest page of modules a client may ask for
+   * @param meterRegistry the registry of the module detail page's metrics
    */
   public ModuleController(ModuleRepository moduleRepository,
-      RegistrationRepository registrationRepository) {
+      RegistrationRepository registrationRepository, GradeRepository gradeRepository,
+      ModuleStatsRepository moduleStatsRepository, LookupService lookupService,
+      ImportService importService, @Value("${paging.max-page-size:500}") int maxPageSize,
+      MeterRegistry meterRegistry) {
     this.moduleRepository = moduleRepository;
     this.registrationRepository = registrationRepository;
+    this.gradeRepository = gradeRepository;
+    this.moduleStatsRepository = moduleStatsRepository;
+    this.lookupService = lookupService;
+    this.importService = importService;
+    this.maxPageSize = maxPageSize;
+    this.registrationsScanned = DistributionSummary.builder("module.details.registrations")
+        .description("Registrations read to list the students of a module")
+        .baseUnit("rows")
+        .register(meterRegistry);
+    this.gradesFound = DistributionSummary.builder("module.details.grades")
+        .description("Grades summarised in the statistics of a module")
+        .baseUnit("grades")
+        .register(meterRegistry);
+    this.materialisedStatistics = Counter.builder("module.details.statistics")
+        .description("Module detail responses by where their statistics were read from")
+        .tag("source", "materialised")
+        .register(meterRegistry);
+    this.aggregatedStatistics = Counter.builder("module.details.statistics")
+        .description("Module detail responses by where their statistics were read from")
+        .tag("source", "aggregated")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Lists the modules in code order, one page at a time.
+   * Each page is read with a single query that seeks past the last code of the previous page.
+   *
+   * @param after the module code to list the modules after, which is the nextCursor of the
+   *              previous page, or empty for the first page
+   * @param size the number of modules per page, capped at the configured maximum
+   * @return A {@link ResponseEntity} containing the page, or HTTP status 400 (BAD_REQUEST) if the
+   *         size is not positive
+   */
+  @SqlBudget(1)
+  @GetMapping(value = "/modules/view")
+  public ResponseEntity<KeysetPage<Module, String>> viewModules(
+      @RequestParam(defaultValue = "") String after,
+      @RequestParam(defaultValue = "${paging.default-page-size:20}") int size) {
+    if (size < 1) {
+      return ResponseEntity.badRequest().build();
+    }
+    int pageSize = Math.min(size, maxPageSize);
+    List<Module> rows = moduleRepository.findByCodeGreaterThanOrderByCode(after,
+        Limit.of(pageSize + 1));
+    return ResponseEntity.ok(KeysetPage.of(rows, pageSize, Module::getCode));
+  }
+
+  /**
+   * Handles HTTP POST requests to load modules in bulk from CSV, with one code,name,mnc row per
+   * line and an optional header line.
+   * The body is read as it arrives and written in batches, so a file of any size is loaded in
+   * constant memory. Rows that are invalid, or whose code is already taken, are reported rather
+   * than failing the import. The statements sent grow with the number of batches, so the endpoint
+   * has no fixed SQL budget.
+   *
+   * @param csv The CSV document.
+   * @param checkpoint The name to keep the import's progress under, so that sending the same
+   *                   file again under the name skips the rows already committed, or empty to
+   *                   keep no progress.
+   * @return A {@link ResponseEntity} containing the import report with HTTP status 200 (OK), or
+   *         HTTP status 409 (CONFLICT) if the checkpoint belongs to an import of students or a
+   *         batch clashed with a concurrent write, in which case the import can be resumed from
+   *         its checkpoint.
+   * @throws IOException if the request body cannot be read
+   */
+  @SqlBudget(Integer.MAX_VALUE)
+  @PostMapping(value = "/modules/import", consumes = "text/csv")
+  public ResponseEntity<ImportReport> importModules(Reader csv,
+      @RequestParam(required = false) String checkpoint) throws IOException {
+    try {
+      return ResponseEntity.ok(importService.importModules(csv, checkpoint));
+    } catch (IllegalStateException exception) {
+      return ResponseEntity.status(HttpStatus.CONFLICT)
+          .header("Error-Message", exception.getMessage())
+          .build();
+    } catch (DataIntegrityViolationException exception) {
+      return ResponseEntity.status(HttpStatus.CONFLICT)
+          .header("Error-Message", "A row was written concurrently, please resume the import")
+          .build();
+    }
   }
   
   /**
    * A method to delete a particular Module from the backend of the database.
+   * The module's statistics are emptied rather than deleted, so the revision used as the ETag of
+   * its details carries on from where it was if a module with the same code is created again.
    *
    * @param id The unique string identifier that represents a module
    * @return A responseEntity describing the success of the operation
    */
+  @SqlBudget(3)
   @DeleteMapping(value = "/modules/{id}")
   public ResponseEntity<Module> deleteModule(@PathVariable String id) {
     Module retrievedModule;
@@ -54,6 +182,8 @@ public class ModuleController {
       return ResponseEntity.notFound().build();
     }
     moduleRepository.delete(retrievedModule);
+    moduleStatsRepository.resetByModuleCode(id);
+    lookupService.evictModule(id);
     return ResponseEntity.ok().build();
   }
 
@@ -61,58 +191,47 @@ public class ModuleController {
    * Handles the HTTP GET request to retrieve details of a specific module, including the module
    * information, students registered in the module, grade distribution, total number of grades,
    * and the average grade.
+   * The number of registrations read, the number of grades summarised and where the statistics
+   * came from are recorded under the module.details metrics.
+   * The registered students are read with their scores as plain rows in one statement, so the
+   * number of statements is the same however many students are registered.
+   * The grade statistics are read from the module's materialised statistics, and are only
+   * aggregated from the grades if the module has never had a grade written through the API.
+   * The ETag is the revision of the module's statistics, which moves on with every change to the
+   * module, its registrations, its grades or the personal details of a registered student. The
+   * revision only goes up, and the row is kept when the module is deleted, so a request whose
+   * If-None-Match header still matches is answered with 304 (NOT_MODIFIED) without loading the
+   * students. The revision is 0 only until the first write to the module.
    *
    * @param moduleCode The code of the module for which details are requested.
-   * @return A ResponseEntity containing a map of module details.
+   * @param request The request, whose If-None-Match header is checked against the ETag.
+   * @return A ResponseEntity containing the module details.
    */
+  @SqlBudget(5)
   @GetMapping(value = "/modules/moduleDetails/{moduleCode}")
-  public ResponseEntity<Map<String, Object>> sendModuleDetails(@PathVariable String moduleCode) {
-    Module module = moduleRepository.findById(moduleCode).orElseThrow();
-
-    List<Student> students = new ArrayList<>();
-    double totalGrade = 0;
-    int gradeCount = 0;
-    Map<String, Integer> pieCount = new HashMap<>();
-    pieCount.put("0-40", 0);
-    pieCount.put("40-50", 0);
-    pieCount.put("50-60", 0);
-    pieCount.put("60-70", 0);
-    pieCount.put("70-100", 0);
-
-    for (Registration registration : registrationRepository.findAll()) {
-      if (registration.getModule().equals(module)) {
-        Student student = registration.getStudent();
-        students.add(student);
-        try {
-          Grade grade = student.getGrade(module);
-          int score = grade.getScore();
-          totalGrade = totalGrade + score;
-          gradeCount = gradeCount + 1;
-          if (score < 40) {
-            pieCount.replace("0-40", pieCount.get("0-40") + 1);
-          } else if (score < 50) {
-            pieCount.replace("40-50", pieCount.get("40-50") + 1);
-          } else if (score < 60) {
-            pieCount.replace("50-60", pieCount.get("50-60") + 1);
-          } else if (score < 70) {
-            pieCount.replace("60-70", pieCount.get("60-70") + 1);
-          } else {
-            pieCount.replace("70-100", pieCount.get("70-100") + 1);
-          }
-        } catch (Exception ignored) {
-          continue;
-        }
-      }
+  public ResponseEntity<ModuleDetails> sendModuleDetails(@PathVariable String moduleCode,
+      WebRequest request) {
+    Module module = lookupService.getModule(moduleCode);
+    Optional<ModuleStats> stats = moduleStatsRepository.findById(moduleCode);
+    String etag = String.valueOf(stats.map(ModuleStats::getRevision).orElse(0L));
+    if (request.checkNotModified(etag)) {
+      return null;
+    }
 
+    List<RegisteredStudent> students =
+        registrationRepository.findRegisteredStudentsByModuleCode(moduleCode);
+    registrationsScanned.record(students.size());
+    ModuleStatistics statistics;
+    if (stats.isPresent()) {
+      statistics = stats.get().toStatistics();
+      materialisedStatistics.increment();
+    } else {
+      statistics = gradeRepository.findStatisticsByModuleCode(moduleCode);
+      aggregatedStatistics.increment();
     }
+    gradesFound.record(statistics.totalGrades());
 
-    Map<String, Object> response = new HashMap<>();
-    response.put("students", students);
-    response.put("totalGrades", gradeCount);
-    response.put("average", totalGrade / gradeCount);
-    response.put("pieChart", pieCount);
-    response.put("module", module);
-    return new ResponseEntity<>(response, HttpStatus.OK);
+    return ResponseEntity.ok().eTag(etag).body(new ModuleDetails(module, students, statistics));
   }
 
 }
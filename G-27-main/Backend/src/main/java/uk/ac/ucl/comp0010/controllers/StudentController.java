@@ -1,11 +1,15 @@
 package uk.ac.ucl.comp0010.controllers;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.Reader;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -13,14 +17,25 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import uk.ac.ucl.comp0010.model.Grade;
+import org.springframework.web.context.request.WebRequest;
+import uk.ac.ucl.comp0010.config.SqlBudget;
+import uk.ac.ucl.comp0010.dto.ImportReport;
+import uk.ac.ucl.comp0010.dto.KeysetPage;
+import uk.ac.ucl.comp0010.dto.RegistrationReport;
+import uk.ac.ucl.comp0010.dto.RegistrationRequest;
+import uk.ac.ucl.comp0010.dto.StudentDetails;
+import uk.ac.ucl.comp0010.dto.StudentSummary;
 import uk.ac.ucl.comp0010.model.Module;
 import uk.ac.ucl.comp0010.model.Registration;
 import uk.ac.ucl.comp0010.model.Student;
-import uk.ac.ucl.comp0010.repository.ModuleRepository;
-import uk.ac.ucl.comp0010.repository.RegistrationRepository;
 import uk.ac.ucl.comp0010.repository.StudentRepository;
+import uk.ac.ucl.comp0010.service.GradeService;
+import uk.ac.ucl.comp0010.service.ImportService;
+import uk.ac.ucl.comp0010.service.LookupService;
+import uk.ac.ucl.comp0010.service.RegistrationService;
+import uk.ac.ucl.comp0010.service.StudentService;
 
 /**
  * Controller class responsible for managing operations related to students.
@@ -30,32 +45,74 @@ import uk.ac.ucl.comp0010.repository.StudentRepository;
 public class StudentController {
 
   private final StudentRepository studentRepository;
-  private final ModuleRepository moduleRepository;
-  private final RegistrationRepository registrationRepository;
+  private final GradeService gradeService;
+  private final RegistrationService registrationService;
+  private final StudentService studentService;
+  private final LookupService lookupService;
+  private final ImportService importService;
+  private final int maxPageSize;
 
   /**
    * Constructs a new StudentController with the specified repositories.
    *
    * @param studentRepository the repository for accessing student data
-   * @param moduleRepository  the repository for accessing module data
+   * @param gradeService the service that removes grades along with registrations and students
+   * @param registrationService the service that registers students for modules
+   * @param studentService the service that loads a student's details
+   * @param lookupService the service that caches modules and students' personal details
+   * @param importService the service that loads students in bulk
+   * @param maxPageSize the largest page of students a client may ask for
    */
-  public StudentController(StudentRepository studentRepository, ModuleRepository moduleRepository,
-      RegistrationRepository registrationRepository) {
+  public StudentController(StudentRepository studentRepository, GradeService gradeService,
+      RegistrationService registrationService, StudentService studentService,
+      LookupService lookupService, ImportService importService,
+      @Value("${paging.max-page-size:500}") int maxPageSize) {
     this.studentRepository = studentRepository;
-    this.moduleRepository = moduleRepository;
-    this.registrationRepository = registrationRepository;
+    this.gradeService = gradeService;
+    this.registrationService = registrationService;
+    this.studentService = studentService;
+    this.lookupService = lookupService;
+    this.importService = importService;
+    this.maxPageSize = maxPageSize;
+  }
+
+  /**
+   * Handles HTTP GET requests to list the students in ID order, one page at a time.
+   * Each page is read with a single query that seeks past the last ID of the previous page, and
+   * holds only the students' personal details.
+   *
+   * @param after The student ID to list the students after, which is the nextCursor of the
+   *              previous page, or 0 for the first page.
+   * @param size The number of students per page, capped at the configured maximum.
+   * @return A {@link ResponseEntity} containing the page, or HTTP status 400 (BAD_REQUEST) if the
+   *         size is not positive.
+   */
+  @SqlBudget(1)
+  @GetMapping(value = "/students/view")
+  public ResponseEntity<KeysetPage<StudentSummary, Long>> viewStudents(
+      @RequestParam(defaultValue = "0") long after,
+      @RequestParam(defaultValue = "${paging.default-page-size:20}") int size) {
+    if (size < 1) {
+      return ResponseEntity.badRequest().build();
+    }
+    int pageSize = Math.min(size, maxPageSize);
+    List<StudentSummary> rows = studentRepository.findSummariesAfter(after,
+        Limit.of(pageSize + 1));
+    return ResponseEntity.ok(KeysetPage.of(rows, pageSize, StudentSummary::id));
   }
 
   /**
    * Handles HTTP GET requests to retrieve detailed information about a specific student.
    * This method fetches a student's information, their registered modules, and their grades
    * based on the provided student ID.
+   * The response carries the student's revision as its ETag, and a request whose If-None-Match
+   * header still matches it is answered with 304 (NOT_MODIFIED) without loading the details.
    *
    * @param id The unique identifier of the student whose details are to be retrieved.
-   * @return A {@link ResponseEntity} containing a map with the following keys:
+   * @param request The request, whose If-None-Match header is checked against the ETag.
+   * @return A {@link ResponseEntity} containing a {@link StudentDetails} with the following keys:
    *         <ul>
-   *             <li><b>"student"</b>: The {@link Student} object representing the student's
-   *             details.</li>
+   *             <li><b>"student"</b>: The student's personal details.</li>
    *             <li><b>"registeredModules"</b>: A {@link List} of {@link Module} objects
    *             representing the
    *             modules the student is registered for.</li>
@@ -63,21 +120,15 @@ public class StudentController {
    *         </ul>
    *         The response is wrapped in an HTTP status of {@code 200 OK}.
    */
+  @SqlBudget(4)
   @GetMapping(value = "/students/studentDetail/{id}")
-  public ResponseEntity<Map<String, Object>> sendStudentDetails(@PathVariable long id) {
-    Student student = studentRepository.findById(id).orElseThrow();
-
-    List<Module> registeredModules = new ArrayList<Module>();
-    for (Registration registration : student.getStudentRegistration()) {
-      registeredModules.add(registration.getModule());
+  public ResponseEntity<StudentDetails> sendStudentDetails(@PathVariable long id,
+      WebRequest request) {
+    String etag = etag(studentRepository.findById(id).orElseThrow());
+    if (request.checkNotModified(etag)) {
+      return null;
     }
-
-    Map<String, Object> response = new HashMap<>();
-    response.put("student", student);
-    response.put("registeredModules", registeredModules);
-    response.put("grades", student.getGradeList());
-
-    return new ResponseEntity<>(response, HttpStatus.OK);
+    return ResponseEntity.ok().eTag(etag).body(studentService.getStudentDetails(id));
   }
 
   /**
@@ -94,42 +145,111 @@ public class StudentController {
    *               </ul>
    * @return A {@link ResponseEntity} containing the {@link Registration} object with HTTP status
    *         200 (OK) if the registration is successful, or HTTP status 409 (CONFLICT) if the
-   *         student is already registered for the module.
+   *         student is already registered for the module, including when a concurrent request
+   *         registered them first.
    */
+  @SqlBudget(11)
   @PostMapping(value = "/students/studentDetail/register")
   public ResponseEntity<Registration> registerStudent(@RequestBody Map<String, String> params) {
-    Student student = studentRepository.findById(Long.valueOf(params.get("student_id")))
-        .orElseThrow();
-    Module module = moduleRepository.findById(params.get("module_code")).orElseThrow();
-    for (Registration registration : student.getStudentRegistration()) {
-      if (registration.getModule().equals(module)) {
-        return ResponseEntity.status(HttpStatus.CONFLICT)
-            .header("Error-Message", "Student is already registered for this module")
-            .build();
-      }
+    Module module = lookupService.getModule(params.get("module_code"));
+    Optional<Registration> registration;
+    try {
+      registration = registrationService.register(Long.parseLong(params.get("student_id")),
+          module);
+    } catch (DataIntegrityViolationException exception) {
+      registration = Optional.empty();
+    }
+    if (registration.isEmpty()) {
+      return ResponseEntity.status(HttpStatus.CONFLICT)
+          .header("Error-Message", "Student is already registered for this module")
+          .build();
+    }
+    return ResponseEntity.ok(registration.get());
+  }
+
+  /**
+   * Handles HTTP POST requests to register many students for many modules at once.
+   * Each row of the request body is an object with the same keys as the parameters of
+   * {@link #registerStudent(Map)}. Rows that cannot be applied are reported rather than failing
+   * the whole request.
+   *
+   * @param requests The rows of the request.
+   * @return A {@link ResponseEntity} containing the outcome of every row with HTTP status 200
+   *         (OK), or HTTP status 409 (CONFLICT) if a concurrent request registered one of the
+   *         same students for one of the same modules, in which case nothing is registered.
+   */
+  @SqlBudget(25)
+  @PostMapping(value = "/students/studentDetail/registerAll")
+  public ResponseEntity<RegistrationReport> registerStudents(
+      @RequestBody List<RegistrationRequest> requests) {
+    try {
+      return ResponseEntity.ok(registrationService.registerAll(requests));
+    } catch (DataIntegrityViolationException exception) {
+      return ResponseEntity.status(HttpStatus.CONFLICT)
+          .header("Error-Message", "A student was registered concurrently, please retry")
+          .build();
+    }
+  }
+
+  /**
+   * Handles HTTP POST requests to load students in bulk from CSV, with one
+   * id,first_name,last_name,username,email row per line and an optional header line.
+   * The body is read as it arrives and written in batches, so a file of any size is loaded in
+   * constant memory. Rows that are invalid, or whose ID, username or email is already taken, are
+   * reported rather than failing the import. The statements sent grow with the number of batches,
+   * so the endpoint has no fixed SQL budget.
+   *
+   * @param csv The CSV document.
+   * @param checkpoint The name to keep the import's progress under, so that sending the same
+   *                   file again under the name skips the rows already committed, or empty to
+   *                   keep no progress.
+   * @return A {@link ResponseEntity} containing the import report with HTTP status 200 (OK), or
+   *         HTTP status 409 (CONFLICT) if the checkpoint belongs to an import of modules or a
+   *         batch clashed with a concurrent write, in which case the import can be resumed from
+   *         its checkpoint.
+   * @throws IOException if the request body cannot be read
+   */
+  @SqlBudget(Integer.MAX_VALUE)
+  @PostMapping(value = "/students/import", consumes = "text/csv")
+  public ResponseEntity<ImportReport> importStudents(Reader csv,
+      @RequestParam(required = false) String checkpoint) throws IOException {
+    try {
+      return ResponseEntity.ok(importService.importStudents(csv, checkpoint));
+    } catch (IllegalStateException exception) {
+      return ResponseEntity.status(HttpStatus.CONFLICT)
+          .header("Error-Message", exception.getMessage())
+          .build();
+    } catch (DataIntegrityViolationException exception) {
+      return ResponseEntity.status(HttpStatus.CONFLICT)
+          .header("Error-Message", "A row was written concurrently, please resume the import")
+          .build();
     }
-    student.registerModule(module);
-    studentRepository.save(student);
-    Registration registration = student.getStudentRegistration()
-        .get(student.getStudentRegistration().size() - 1);
-    return ResponseEntity.ok(registration);
   }
 
   /**
    * Endpoint to compute and return the average grade of a student.
+   * The response carries the same ETag as the student's details.
    *
    * @param id the unique identifier of the student whose average grade is to be computed.
+   * @param request the request, whose If-None-Match header is checked against the ETag.
    * @return a {@link ResponseEntity} containing a map with the key "average" and the computed
-   *     average grade as the value.
+   *     average grade as the value, or HTTP status 304 (NOT_MODIFIED) if the client's copy is
+   *     still current.
    */
+  @SqlBudget(2)
   @GetMapping(value = "/students/studentDetail/computeAverage/{id}")
-  public ResponseEntity<Map<String, Double>> sendAverage(@PathVariable long id) {
+  public ResponseEntity<Map<String, Double>> sendAverage(@PathVariable long id,
+      WebRequest request) {
     Student student = studentRepository.findById(id).orElseThrow();
+    String etag = etag(student);
+    if (request.checkNotModified(etag)) {
+      return null;
+    }
 
     Map<String, Double> response = new HashMap<>();
     response.put("average", (double) student.computeAverage());
 
-    return new ResponseEntity<>(response, HttpStatus.OK);
+    return ResponseEntity.ok().eTag(etag).body(response);
   }
   
   /**
@@ -138,52 +258,39 @@ public class StudentController {
    * @param id The unique long identifier that represents a student
    * @return A responseEntity describing the success of the operation
    */
+  @SqlBudget(50)
   @DeleteMapping(value = "/students/{id}")
   public ResponseEntity<Student> deleteStudent(@PathVariable long id) {
-    Student retrievedStudent;
     try {
-      retrievedStudent = studentRepository.findById(id).get();
+      gradeService.deleteStudent(id);
     } catch (NoSuchElementException exception) {
       return  ResponseEntity.notFound().build();
     }
-    studentRepository.delete(retrievedStudent);
+    lookupService.evictStudentSummary(id);
     return ResponseEntity.ok().build();
   }
   
   /**
    * A method to delete a particular registration from the backend of the database.
+   * Any grade the student had for the module is deleted along with the registration.
    *
    * @param studentId A unique long identifier that represents a student
    * @param moduleCode a unique string that represents a module
    * @return A response entity that describes the success of the operation
    */
+  @SqlBudget(13)
   @DeleteMapping(value = "/students/studentDetail/registrations/{studentId}/{moduleCode}")
   public ResponseEntity<Registration> deleteRegistration(@PathVariable long studentId,
                                                          @PathVariable String moduleCode) {
-    Student student = studentRepository.findById(studentId).orElseThrow();
-    Module module = moduleRepository.findById(moduleCode).orElseThrow();
-
-    Optional<Registration> registrationOpt =
-        registrationRepository.findByModuleAndStudent(module, student);
-    Registration registration;
     try {
-      if (registrationOpt.isPresent()) {
-        registration = registrationOpt.get();
-      } else {
-        throw new NoSuchElementException();
-      }
+      gradeService.deleteRegistration(studentId, moduleCode);
     } catch (NoSuchElementException exception) {
       return ResponseEntity.notFound().build();
     }
-    registrationRepository.delete(registration);
-    int index = 0;
-    for (Grade grade : student.getGradeList()) {
-      if (grade.getModule().getCode().equals(module.getCode())) {
-        index = student.getGradeList().indexOf(grade);
-      }
-    }
-    student.getGradeList().remove(index);
-    studentRepository.save(student);
     return ResponseEntity.ok().build();
   }
+
+  private static String etag(Student student) {
+    return student.getId() + "-" + student.getRevision();
+  }
 }
\ No newline at end of file
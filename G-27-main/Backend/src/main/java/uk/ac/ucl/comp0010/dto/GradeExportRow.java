@@ -0,0 +1,45 @@
+package uk.ac.ucl.comp0010.dto;
+
+/**
+ * A row of a grade export, holding a student, a module and the student's score in it.
+ *
+ * @param studentId the ID of the student
+ * @param firstName the first name of the student
+ * @param lastName the last name of the student
+ * @param moduleCode the code of the module
+ * @param moduleName the name of the module
+ * @param score the student's score in the module, or null if they are registered but ungraded
+ */
+public record GradeExportRow(long studentId, String firstName, String lastName, String moduleCode,
+    String moduleName, Integer score) {
+
+  /**
+   * The header line of a CSV export, without its line break.
+   * The student_id, module_code and score columns use the same names as a batch grade upload.
+   */
+  public static final String CSV_HEADER =
+      "student_id,first_name,last_name,module_code,module_name,score";
+
+  /**
+   * Formats the row as a CSV line, without its line break.
+   * Fields containing a comma, a quote or a line break are quoted, and a missing score is left
+   * empty.
+   *
+   * @return the CSV line
+   */
+  public String toCsv() {
+    return studentId + "," + quote(firstName) + "," + quote(lastName) + "," + quote(moduleCode)
+        + "," + quote(moduleName) + "," + (score == null ? "" : score);
+  }
+
+  private static String quote(String field) {
+    if (field == null) {
+      return "";
+    }
+    if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0
+        && field.indexOf('\r') < 0) {
+      return field;
+    }
+    return '"' + field.replace("\"", "\"\"") + '"';
+  }
+}
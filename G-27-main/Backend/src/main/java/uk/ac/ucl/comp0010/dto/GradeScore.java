@@ -0,0 +1,10 @@
+package uk.ac.ucl.comp0010.dto;
+
+/**
+ * The ID and score of a stored grade, read without loading the grade or its module.
+ *
+ * @param id the ID of the grade
+ * @param score the score of the grade
+ */
+public record GradeScore(long id, int score) {
+}
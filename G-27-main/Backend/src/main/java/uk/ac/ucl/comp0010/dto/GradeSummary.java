@@ -0,0 +1,24 @@
+package uk.ac.ucl.comp0010.dto;
+
+import uk.ac.ucl.comp0010.model.Grade;
+import uk.ac.ucl.comp0010.model.Module;
+
+/**
+ * A grade of a student, with the module it is for but without the student.
+ *
+ * @param id the ID of the grade
+ * @param score the score of the grade
+ * @param module the module the grade is for
+ */
+public record GradeSummary(long id, int score, Module module) {
+
+  /**
+   * Copies a grade.
+   *
+   * @param grade the grade to copy
+   * @return the grade without its student
+   */
+  public static GradeSummary of(Grade grade) {
+    return new GradeSummary(grade.getId(), grade.getScore(), grade.getModule());
+  }
+}
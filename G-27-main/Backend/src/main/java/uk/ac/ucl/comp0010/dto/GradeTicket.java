@@ -0,0 +1,30 @@
+package uk.ac.ucl.comp0010.dto;
+
+/**
+ * The state of a grade submitted for asynchronous ingestion.
+ *
+ * @param ticket the ticket the submission was given
+ * @param status what has happened to the submission so far
+ */
+public record GradeTicket(long ticket, Status status) {
+
+  /**
+   * The possible states of a submission.
+   */
+  public enum Status {
+    /** The submission is waiting to be written. */
+    QUEUED,
+    /** A new grade was recorded. */
+    CREATED,
+    /** The student's existing grade for the module was replaced. */
+    UPDATED,
+    /** A later submission for the same student and module was written in its place. */
+    SUPERSEDED,
+    /** The student or the module does not exist. */
+    NOT_FOUND,
+    /** The student is not registered for the module. */
+    NOT_REGISTERED,
+    /** The submission could not be written. */
+    FAILED
+  }
+}
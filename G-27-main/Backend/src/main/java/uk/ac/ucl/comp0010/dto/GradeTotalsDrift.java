@@ -0,0 +1,14 @@
+package uk.ac.ucl.comp0010.dto;
+
+/**
+ * A student whose stored grade totals no longer match the grades recorded for them.
+ *
+ * @param studentId the ID of the student
+ * @param storedTotal the sum of scores stored on the student
+ * @param storedCount the number of grades stored on the student
+ * @param actualTotal the sum of the scores in the Grade table
+ * @param actualCount the number of grades in the Grade table
+ */
+public record GradeTotalsDrift(long studentId, long storedTotal, int storedCount,
+    long actualTotal, long actualCount) {
+}
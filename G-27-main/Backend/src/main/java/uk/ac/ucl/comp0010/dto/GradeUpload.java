@@ -0,0 +1,58 @@
+package uk.ac.ucl.comp0010.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A single row of a batch grade upload.
+ * The fields use the same names as the parameters of the single grade endpoint. Any of them may
+ * be null if the row was incomplete, in which case the row is rejected.
+ *
+ * @param studentId the ID of the student
+ * @param moduleCode the code of the module
+ * @param score the grade score
+ */
+public record GradeUpload(@JsonProperty("student_id") Long studentId,
+    @JsonProperty("module_code") String moduleCode, @JsonProperty("score") Integer score) {
+
+  /**
+   * Parses a CSV document with one {@code student_id,module_code,score} row per line.
+   * A header line starting with {@code student_id} and blank lines are skipped. Fields that are
+   * missing or cannot be parsed are left null, so the row is reported as invalid instead of
+   * failing the whole upload.
+   *
+   * @param csv the CSV document
+   * @return the rows of the document, in order
+   */
+  public static List<GradeUpload> parseCsv(String csv) {
+    List<GradeUpload> uploads = new ArrayList<>();
+    for (String line : csv.split("\\R")) {
+      if (line.isBlank() || (uploads.isEmpty() && line.strip().startsWith("student_id"))) {
+        continue;
+      }
+      String[] fields = line.split(",", -1);
+      uploads.add(new GradeUpload(
+          fields.length > 0 ? parseLong(fields[0]) : null,
+          fields.length > 1 && !fields[1].isBlank() ? fields[1].strip() : null,
+          fields.length == 3 ? parseInteger(fields[2]) : null));
+    }
+    return uploads;
+  }
+
+  private static Long parseLong(String field) {
+    try {
+      return Long.valueOf(field.strip());
+    } catch (NumberFormatException exception) {
+      return null;
+    }
+  }
+
+  private static Integer parseInteger(String field) {
+    try {
+      return Integer.valueOf(field.strip());
+    } catch (NumberFormatException exception) {
+      return null;
+    }
+  }
+}
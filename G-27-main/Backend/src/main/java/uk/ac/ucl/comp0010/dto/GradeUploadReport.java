@@ -0,0 +1,34 @@
+package uk.ac.ucl.comp0010.dto;
+
+import java.util.List;
+
+/**
+ * The response body of a batch grade upload, summarising the outcome of every row.
+ *
+ * @param created the number of rows that recorded a new grade
+ * @param updated the number of rows that replaced an existing grade
+ * @param rejected the number of rows that were not applied
+ * @param rows the outcome of each row, in upload order
+ */
+public record GradeUploadReport(int created, int updated, int rejected,
+    List<GradeUploadResult> rows) {
+
+  /**
+   * Builds a report from the outcome of each row, counting the rows by status.
+   *
+   * @param rows the outcome of each row, in upload order
+   * @return the report
+   */
+  public static GradeUploadReport of(List<GradeUploadResult> rows) {
+    int created = 0;
+    int updated = 0;
+    for (GradeUploadResult row : rows) {
+      if (row.status() == GradeUploadResult.Status.CREATED) {
+        created++;
+      } else if (row.status() == GradeUploadResult.Status.UPDATED) {
+        updated++;
+      }
+    }
+    return new GradeUploadReport(created, updated, rows.size() - created - updated, rows);
+  }
+}
@@ -0,0 +1,28 @@
+package uk.ac.ucl.comp0010.dto;
+
+/**
+ * The outcome of a single row of a batch grade upload.
+ *
+ * @param row the one-based position of the row in the upload
+ * @param studentId the ID of the student, as given in the row
+ * @param moduleCode the code of the module, as given in the row
+ * @param status what happened to the row
+ */
+public record GradeUploadResult(int row, Long studentId, String moduleCode, Status status) {
+
+  /**
+   * The possible outcomes of a row.
+   */
+  public enum Status {
+    /** A new grade was recorded. */
+    CREATED,
+    /** The student's existing grade for the module was replaced. */
+    UPDATED,
+    /** The row was missing a field or could not be parsed. */
+    INVALID,
+    /** The student or the module does not exist. */
+    NOT_FOUND,
+    /** The student is not registered for the module. */
+    NOT_REGISTERED
+  }
+}
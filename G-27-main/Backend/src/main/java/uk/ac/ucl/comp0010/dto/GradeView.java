@@ -0,0 +1,16 @@
+package uk.ac.ucl.comp0010.dto;
+
+/**
+ * A row of the grade list, holding a grade together with the name of its student and module.
+ *
+ * @param id the ID of the grade
+ * @param score the score of the grade
+ * @param studentId the ID of the student the grade belongs to
+ * @param firstName the first name of the student
+ * @param lastName the last name of the student
+ * @param moduleCode the code of the module the grade is for
+ * @param moduleName the name of the module
+ */
+public record GradeView(long id, int score, long studentId, String firstName, String lastName,
+    String moduleCode, String moduleName) {
+}
@@ -0,0 +1,25 @@
+package uk.ac.ucl.comp0010.dto;
+
+/**
+ * A row of a bulk import that was not loaded.
+ *
+ * @param row the one-based position of the row among the data rows of the file
+ * @param key the ID or code given in the row, or null if it was blank
+ * @param reason why the row was not loaded
+ */
+public record ImportReject(long row, String key, Reason reason) {
+
+  /**
+   * The reasons a row can be rejected.
+   */
+  public enum Reason {
+    /** The row had the wrong number of fields, or a field was missing or could not be parsed. */
+    INVALID,
+    /** The ID or code is already taken, by a stored row or an earlier row of the file. */
+    DUPLICATE_KEY,
+    /** The username is already taken, by a stored student or an earlier row of the file. */
+    DUPLICATE_USERNAME,
+    /** The email is already taken, by a stored student or an earlier row of the file. */
+    DUPLICATE_EMAIL
+  }
+}
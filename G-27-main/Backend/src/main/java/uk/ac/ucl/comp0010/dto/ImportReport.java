@@ -0,0 +1,24 @@
+package uk.ac.ucl.comp0010.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The response body of a bulk import, summarising what was loaded and what was rejected.
+ * Only the first rejects are listed individually, so the report stays small however many rows
+ * are rejected; the counts by reason cover all of them.
+ *
+ * @param imported the number of rows loaded
+ * @param rejected the number of rows not loaded
+ * @param skipped the number of rows skipped because a previous run of the import committed them
+ * @param checkpoint the number of data rows of the file committed so far, including skipped ones
+ * @param batches the number of batches committed
+ * @param elapsedMillis how long the import took
+ * @param rowsPerSecond the rows loaded or rejected per second
+ * @param rejectsByReason the number of rejected rows for each reason
+ * @param rejects the first rejected rows, in file order
+ */
+public record ImportReport(long imported, long rejected, long skipped, long checkpoint,
+    long batches, long elapsedMillis, double rowsPerSecond,
+    Map<ImportReject.Reason, Long> rejectsByReason, List<ImportReject> rejects) {
+}
@@ -0,0 +1,36 @@
+package uk.ac.ucl.comp0010.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a list that is paginated by key rather than by offset.
+ * The client asks for the rows after a key, and passes the returned cursor back as that key to
+ * get the next page, so every page is read with an index seek however deep it is.
+ *
+ * @param <T> the type of the rows
+ * @param <K> the type of the key the rows are ordered by
+ * @param content the rows of the page, in key order
+ * @param nextCursor the key to ask for the next page after, or null if this is the last page
+ */
+public record KeysetPage<T, K>(List<T> content, K nextCursor) {
+
+  /**
+   * Builds a page from rows that were read with a limit of one more than the page size.
+   * The extra row, if present, only shows that there is a next page and is not returned.
+   *
+   * @param <T> the type of the rows
+   * @param <K> the type of the key the rows are ordered by
+   * @param rows the rows that were read, in key order
+   * @param size the page size
+   * @param key the function that returns the key of a row
+   * @return the page
+   */
+  public static <T, K> KeysetPage<T, K> of(List<T> rows, int size, Function<T, K> key) {
+    if (rows.size() <= size) {
+      return new KeysetPage<>(rows, null);
+    }
+    List<T> content = rows.subList(0, size);
+    return new KeysetPage<>(List.copyOf(content), key.apply(content.get(size - 1)));
+  }
+}
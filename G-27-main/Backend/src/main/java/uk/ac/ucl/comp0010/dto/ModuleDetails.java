@@ -0,0 +1,20 @@
+package uk.ac.ucl.comp0010.dto;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import java.util.List;
+import uk.ac.ucl.comp0010.model.Module;
+
+/**
+ * The response body of the module detail page.
+ * The statistics are unwrapped so that their fields sit alongside the module and its students.
+ * The students are plain rows rather than entities, so serialising them never touches a lazy
+ * association.
+ *
+ * @param module the module being described
+ * @param students the students registered for the module with their scores in it, in order of
+ *     registration
+ * @param statistics the grade statistics of the module
+ */
+public record ModuleDetails(Module module, List<RegisteredStudent> students,
+    @JsonUnwrapped ModuleStatistics statistics) {
+}
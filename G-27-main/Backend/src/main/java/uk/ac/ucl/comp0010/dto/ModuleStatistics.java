@@ -0,0 +1,52 @@
+package uk.ac.ucl.comp0010.dto;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The grade statistics of a single module, as aggregated by the database.
+ * The pie chart holds the number of grades in each of the five score bands shown on the module
+ * detail page, in ascending order of score.
+ *
+ * @param totalGrades the number of grades recorded for the module
+ * @param totalScore the sum of all scores recorded for the module
+ * @param average the mean score, which is NaN when the module has no grades
+ * @param minimum the lowest score, or null when the module has no grades
+ * @param maximum the highest score, or null when the module has no grades
+ * @param pieChart the number of grades in each score band, keyed by the band's label
+ */
+public record ModuleStatistics(long totalGrades, long totalScore, double average, Integer minimum,
+    Integer maximum, Map<String, Long> pieChart) {
+
+  /**
+   * Builds the statistics from the columns of the aggregate query in
+   * {@link uk.ac.ucl.comp0010.repository.GradeRepository#findStatisticsByModuleCode(String)}.
+   *
+   * @param count the number of grades
+   * @param sum the sum of the scores
+   * @param minimum the lowest score, or null when there are no grades
+   * @param maximum the highest score, or null when there are no grades
+   * @param below40 the number of scores below 40
+   * @param below50 the number of scores from 40 up to 50
+   * @param below60 the number of scores from 50 up to 60
+   * @param below70 the number of scores from 60 up to 70
+   * @param upTo100 the number of scores of 70 or more
+   */
+  public ModuleStatistics(Long count, Long sum, Integer minimum, Integer maximum, Long below40,
+      Long below50, Long below60, Long below70, Long upTo100) {
+    this(count, sum, (double) sum / count, minimum, maximum,
+        pieChart(below40, below50, below60, below70, upTo100));
+  }
+
+  private static Map<String, Long> pieChart(long below40, long below50, long below60, long below70,
+      long upTo100) {
+    Map<String, Long> pieChart = new LinkedHashMap<>();
+    pieChart.put("0-40", below40);
+    pieChart.put("40-50", below50);
+    pieChart.put("50-60", below60);
+    pieChart.put("60-70", below70);
+    pieChart.put("70-100", upTo100);
+    return Collections.unmodifiableMap(pieChart);
+  }
+}
@@ -0,0 +1,12 @@
+package uk.ac.ucl.comp0010.dto;
+
+import uk.ac.ucl.comp0010.model.Grade;
+
+/**
+ * A grade that has just been recorded for a student.
+ *
+ * @param grade the stored grade
+ * @param created true if the grade is new, false if it replaced the student's existing grade
+ */
+public record RecordedGrade(Grade grade, boolean created) {
+}
@@ -0,0 +1,16 @@
+package uk.ac.ucl.comp0010.dto;
+
+/**
+ * A row of the module detail page, holding a registered student's personal details and their
+ * score in the module.
+ *
+ * @param id the ID of the student
+ * @param firstName the first name of the student
+ * @param lastName the last name of the student
+ * @param username the username of the student
+ * @param email the email address of the student
+ * @param score the student's score in the module, or null if they are registered but ungraded
+ */
+public record RegisteredStudent(long id, String firstName, String lastName, String username,
+    String email, Integer score) {
+}
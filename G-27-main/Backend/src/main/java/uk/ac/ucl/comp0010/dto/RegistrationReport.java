@@ -0,0 +1,26 @@
+package uk.ac.ucl.comp0010.dto;
+
+import java.util.List;
+
+/**
+ * The response body of a bulk registration request, summarising the outcome of every row.
+ *
+ * @param registered the number of rows that created a registration
+ * @param rejected the number of rows that did not
+ * @param rows the outcome of each row, in request order
+ */
+public record RegistrationReport(int registered, int rejected, List<RegistrationResult> rows) {
+
+  /**
+   * Builds a report from the outcome of each row, counting the rows that were registered.
+   *
+   * @param rows the outcome of each row, in request order
+   * @return the report
+   */
+  public static RegistrationReport of(List<RegistrationResult> rows) {
+    int registered = (int) rows.stream()
+        .filter(row -> row.status() == RegistrationResult.Status.REGISTERED)
+        .count();
+    return new RegistrationReport(registered, rows.size() - registered, rows);
+  }
+}
@@ -0,0 +1,15 @@
+package uk.ac.ucl.comp0010.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A single row of a bulk registration request.
+ * The fields use the same names as the parameters of the single registration endpoint. Either
+ * of them may be null if the row was incomplete, in which case the row is rejected.
+ *
+ * @param studentId the ID of the student to register
+ * @param moduleCode the code of the module the student is to be registered for
+ */
+public record RegistrationRequest(@JsonProperty("student_id") Long studentId,
+    @JsonProperty("module_code") String moduleCode) {
+}
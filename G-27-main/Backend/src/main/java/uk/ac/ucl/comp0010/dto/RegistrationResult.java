@@ -0,0 +1,26 @@
+package uk.ac.ucl.comp0010.dto;
+
+/**
+ * The outcome of a single row of a bulk registration request.
+ *
+ * @param row the one-based position of the row in the request
+ * @param studentId the ID of the student, as given in the row
+ * @param moduleCode the code of the module, as given in the row
+ * @param status what happened to the row
+ */
+public record RegistrationResult(int row, Long studentId, String moduleCode, Status status) {
+
+  /**
+   * The possible outcomes of a row.
+   */
+  public enum Status {
+    /** The student was registered for the module. */
+    REGISTERED,
+    /** The student was already registered for the module. */
+    ALREADY_REGISTERED,
+    /** The row was missing a field. */
+    INVALID,
+    /** The student or the module does not exist. */
+    NOT_FOUND
+  }
+}
@@ -0,0 +1,17 @@
+package uk.ac.ucl.comp0010.dto;
+
+import java.util.List;
+import uk.ac.ucl.comp0010.model.Module;
+
+/**
+ * The response body of the student detail endpoint.
+ * It holds plain copies of the student, the modules they are registered for and their grades, so
+ * serialising it never touches a lazy association.
+ *
+ * @param student the personal details of the student
+ * @param registeredModules the modules the student is registered for, in registration order
+ * @param grades the grades of the student
+ */
+public record StudentDetails(StudentSummary student, List<Module> registeredModules,
+    List<GradeSummary> grades) {
+}
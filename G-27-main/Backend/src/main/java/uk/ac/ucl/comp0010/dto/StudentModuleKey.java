@@ -0,0 +1,11 @@
+package uk.ac.ucl.comp0010.dto;
+
+/**
+ * Identifies a student and module pair, such as a registration or a grade, without loading
+ * either entity.
+ *
+ * @param studentId the ID of the student
+ * @param moduleCode the code of the module
+ */
+public record StudentModuleKey(long studentId, String moduleCode) {
+}
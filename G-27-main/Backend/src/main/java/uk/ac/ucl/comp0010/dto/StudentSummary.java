@@ -0,0 +1,27 @@
+package uk.ac.ucl.comp0010.dto;
+
+import uk.ac.ucl.comp0010.model.Student;
+
+/**
+ * The personal details of a student, without their registrations or grades.
+ *
+ * @param id the ID of the student
+ * @param firstName the first name of the student
+ * @param lastName the last name of the student
+ * @param username the username of the student
+ * @param email the email address of the student
+ */
+public record StudentSummary(long id, String firstName, String lastName, String username,
+    String email) {
+
+  /**
+   * Copies the personal details of a student.
+   *
+   * @param student the student to copy
+   * @return the personal details of the student
+   */
+  public static StudentSummary of(Student student) {
+    return new StudentSummary(student.getId(), student.getFirstName(), student.getLastName(),
+        student.getUsername(), student.getEmail());
+  }
+}
@@ -6,9 +6,14 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * Represents the Grade of a student.
@@ -16,10 +21,16 @@ import jakarta.persistence.Table;
  */
 
 @Entity
-@Table(name = "Grade")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "Grade", indexes = {
+    @Index(name = "Idx_Grade_Module_Code", columnList = "Module_Code")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "Uk_Grade_Student_Module", columnNames = {"Student_Id", "Module_Code"})
+})
 public class Grade {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "Grade_Seq")
+  @SequenceGenerator(name = "Grade_Seq", sequenceName = "Grade_Seq", allocationSize = 50)
   @Column(name = "Id", nullable = false, unique = true)
   private long id;
   
@@ -88,6 +99,15 @@ public class Grade {
     return this.student;
   }
 
+  /**
+   * A setter method for the grade's id.
+   *
+   * @param id which is the new id of the grade
+   */
+  public void setId(long id) {
+    this.id = id;
+  }
+
   /**
    * A setter method for the grade's score.
    *
@@ -0,0 +1,68 @@
+package uk.ac.ucl.comp0010.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Represents how far a named bulk import has got.
+ * The ImportCheckpoint class holds the number of data rows of the import's file that have been
+ * committed, and is advanced in the same transaction as each batch of the import, so it never
+ * counts a row whose batch was rolled back. Sending the same file again under the same name
+ * resumes after those rows.
+ */
+@Entity
+@Table(name = "Import_Checkpoint")
+public class ImportCheckpoint {
+  @Id
+  @Column(name = "Name", nullable = false, unique = true)
+  private String name;
+  @Column(name = "Kind", nullable = false)
+  private String kind;
+  @Column(name = "Rows_Committed", nullable = false)
+  private long rowsCommitted;
+
+  /**
+   * Default constructor required by JPA.
+   */
+  public ImportCheckpoint() {}
+
+  /**
+   * Creates the checkpoint of an import that has not committed any rows.
+   *
+   * @param name which is the name the import is resumed by
+   * @param kind which is what the import loads, such as students or modules
+   */
+  public ImportCheckpoint(String name, String kind) {
+    this.name = name;
+    this.kind = kind;
+  }
+
+  /**
+   * Returns the name the import is resumed by.
+   *
+   * @return the name
+   */
+  public String getName() {
+    return this.name;
+  }
+
+  /**
+   * Returns what the import loads, such as students or modules.
+   *
+   * @return the kind of the import
+   */
+  public String getKind() {
+    return this.kind;
+  }
+
+  /**
+   * Returns the number of data rows of the file that have been committed.
+   *
+   * @return the number of rows
+   */
+  public long getRowsCommitted() {
+    return this.rowsCommitted;
+  }
+}
@@ -1,16 +1,25 @@
 package uk.ac.ucl.comp0010.model;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * Represents the Module that students can learn.
  * The Module class contains information about the module code, name and mnc.
+ * Modules are rarely changed once created, so they are kept in the second-level cache and
+ * loading a grade or registration does not read its module from the database. A registration
+ * assembled from the cache may hold its module as a lazy proxy, so the proxy's own fields are
+ * left out when it is serialised.
  */
 @Entity
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = "Module")
 @Table(name = "Module")
 public class Module {
   @Id
@@ -0,0 +1,203 @@
+package uk.ac.ucl.comp0010.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import uk.ac.ucl.comp0010.dto.ModuleStatistics;
+
+/**
+ * Represents the materialised grade statistics of a module.
+ * The ModuleStats class holds the number and sum of a module's scores, the lowest and highest
+ * score, and the number of scores in each pie chart band. It is updated alongside every grade
+ * write, so the module detail page can read the statistics with a single primary key lookup.
+ * It also keeps a revision of the module's details, which goes up whenever the module, its
+ * registrations, its grades or a registered student changes, and is kept when the module is
+ * deleted so it never returns to an earlier value.
+ */
+@Entity
+@Table(name = "Module_Stats")
+public class ModuleStats {
+  @Id
+  @Column(name = "Module_Code", nullable = false, unique = true)
+  private String moduleCode;
+
+  @Column(name = "Grade_Count", nullable = false)
+  private long gradeCount;
+  @Column(name = "Grade_Total", nullable = false)
+  private long gradeTotal;
+  @Column(name = "Minimum_Score")
+  private Integer minimumScore;
+  @Column(name = "Maximum_Score")
+  private Integer maximumScore;
+
+  @Column(name = "Band_0_40", nullable = false)
+  private long below40;
+  @Column(name = "Band_40_50", nullable = false)
+  private long below50;
+  @Column(name = "Band_50_60", nullable = false)
+  private long below60;
+  @Column(name = "Band_60_70", nullable = false)
+  private long below70;
+  @Column(name = "Band_70_100", nullable = false)
+  private long upTo100;
+
+  @Column(name = "Revision", nullable = false)
+  private long revision;
+
+  /**
+   * Default constructor required by JPA.
+   */
+  public ModuleStats() {}
+
+  /**
+   * Creates the statistics of a module that has no grades.
+   *
+   * @param moduleCode which is the code of the module
+   */
+  public ModuleStats(String moduleCode) {
+    this.moduleCode = moduleCode;
+  }
+
+  /**
+   * Creates the statistics of a module, starting from statistics that have already been computed.
+   *
+   * @param moduleCode which is the code of the module
+   * @param statistics which are the current statistics of the module
+   */
+  public ModuleStats(String moduleCode, ModuleStatistics statistics) {
+    this.moduleCode = moduleCode;
+    overwrite(statistics);
+  }
+
+  /**
+   * Returns the code of the module these statistics describe.
+   *
+   * @return the module code as a string
+   */
+  public String getModuleCode() {
+    return this.moduleCode;
+  }
+
+  /**
+   * Returns the number of grades recorded for the module.
+   *
+   * @return the number of grades
+   */
+  public long getGradeCount() {
+    return this.gradeCount;
+  }
+
+  /**
+   * Returns the sum of the scores recorded for the module.
+   *
+   * @return the sum of the scores
+   */
+  public long getGradeTotal() {
+    return this.gradeTotal;
+  }
+
+  /**
+   * Returns the revision of the module's registrations and grades.
+   *
+   * @return the number of changes recorded against the module
+   */
+  public long getRevision() {
+    return this.revision;
+  }
+
+  /**
+   * Records a change to the module that does not alter its scores, such as a student registering
+   * for it.
+   */
+  public void touch() {
+    this.revision++;
+  }
+
+  /**
+   * Adds a score to the statistics.
+   *
+   * @param score which is the score of a grade that has been recorded for the module
+   */
+  public void addScore(int score) {
+    this.gradeCount++;
+    this.gradeTotal += score;
+    this.minimumScore = this.minimumScore == null ? score : Math.min(this.minimumScore, score);
+    this.maximumScore = this.maximumScore == null ? score : Math.max(this.maximumScore, score);
+    adjustBand(score, 1);
+    this.revision++;
+  }
+
+  /**
+   * Takes a score off the statistics.
+   * The lowest and highest scores cannot be recovered from the remaining counts, so when the
+   * removed score was one of them the caller must supply the new range through
+   * {@link #setScoreRange(Integer, Integer)}.
+   *
+   * @param score which is the score of a grade that has been removed from the module
+   * @return true if the lowest or highest score may no longer be correct
+   */
+  public boolean removeScore(int score) {
+    this.gradeCount--;
+    this.gradeTotal -= score;
+    adjustBand(score, -1);
+    this.revision++;
+    if (this.gradeCount == 0) {
+      setScoreRange(null, null);
+      return false;
+    }
+    return score == this.minimumScore || score == this.maximumScore;
+  }
+
+  /**
+   * A setter method for the lowest and highest scores of the module.
+   *
+   * @param minimumScore which is the lowest score, or null if there are no grades
+   * @param maximumScore which is the highest score, or null if there are no grades
+   */
+  public void setScoreRange(Integer minimumScore, Integer maximumScore) {
+    this.minimumScore = minimumScore;
+    this.maximumScore = maximumScore;
+    this.revision++;
+  }
+
+  /**
+   * Replaces every stored value with the given statistics.
+   *
+   * @param statistics which are the statistics to store
+   */
+  public void overwrite(ModuleStatistics statistics) {
+    this.gradeCount = statistics.totalGrades();
+    this.gradeTotal = statistics.totalScore();
+    setScoreRange(statistics.minimum(), statistics.maximum());
+    this.below40 = statistics.pieChart().get("0-40");
+    this.below50 = statistics.pieChart().get("40-50");
+    this.below60 = statistics.pieChart().get("50-60");
+    this.below70 = statistics.pieChart().get("60-70");
+    this.upTo100 = statistics.pieChart().get("70-100");
+  }
+
+  /**
+   * Returns the stored values in the same form as the statistics aggregated by the database.
+   *
+   * @return the statistics of the module
+   */
+  public ModuleStatistics toStatistics() {
+    return new ModuleStatistics(this.gradeCount, this.gradeTotal, this.minimumScore,
+        this.maximumScore, this.below40, this.below50, this.below60, this.below70, this.upTo100);
+  }
+
+  private void adjustBand(int score, int delta) {
+    if (score < 40) {
+      this.below40 += delta;
+    } else if (score < 50) {
+      this.below50 += delta;
+    } else if (score < 60) {
+      this.below60 += delta;
+    } else if (score < 70) {
+      this.below70 += delta;
+    } else {
+      this.upTo100 += delta;
+    }
+  }
+}
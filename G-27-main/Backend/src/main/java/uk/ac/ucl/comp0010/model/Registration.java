@@ -7,9 +7,14 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * Represents the Registration that links the student and module classes.
@@ -17,10 +22,18 @@ import jakarta.persistence.Table;
  */
 
 @Entity
-@Table(name = "Registration")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "Registration", indexes = {
+    @Index(name = "Idx_Registration_Module_Code", columnList = "Registered_Module_Code")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "Uk_Registration_Student_Module",
+        columnNames = {"Student_Id", "Registered_Module_Code"})
+})
 public class Registration {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "Registration_Seq")
+  @SequenceGenerator(name = "Registration_Seq", sequenceName = "Registration_Seq",
+      allocationSize = 50)
   @Column(name = "Id", nullable = false, unique = true)
   private long id;
   
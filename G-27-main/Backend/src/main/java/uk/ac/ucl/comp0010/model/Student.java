@@ -1,6 +1,8 @@
 package uk.ac.ucl.comp0010.model;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -8,10 +10,15 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import jakarta.validation.constraints.Null;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import uk.ac.ucl.comp0010.exceptions.NoGradeAvailableException;
 import uk.ac.ucl.comp0010.exceptions.NoRegistrationException;
 
@@ -21,8 +28,12 @@ import uk.ac.ucl.comp0010.exceptions.NoRegistrationException;
  * The Student class maintains information about a student's ID, name,
  * email, and registration details. It also allows managing grades
  * and computing the average grade.
+ * A grade written by reference to its student holds the student as a lazy proxy, so the proxy's
+ * own fields are left out when it is serialised.
  */
 @Entity
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "Student")
 public class Student {
   @Id
@@ -48,6 +59,36 @@ public class Student {
    */
   @OneToMany(mappedBy = "student", cascade = CascadeType.ALL, orphanRemoval = true)
   private List<Grade> gradeList = new ArrayList<>();
+  /**
+   * The running sum of the student's scores, kept in step with the grade list so that the average
+   * can be read without loading the grades.
+   */
+  @JsonIgnore
+  @Column(name = "Grade_Total", nullable = false)
+  private long gradeTotal;
+  /**
+   * The running number of the student's grades, kept in step with the grade list.
+   */
+  @JsonIgnore
+  @Column(name = "Grade_Count", nullable = false)
+  private int gradeCount;
+  /**
+   * A counter that goes up whenever the student's registrations or grades change, used to tell
+   * clients whether a response they already hold is still current.
+   */
+  @JsonIgnore
+  @Column(name = "Revision", nullable = false)
+  private long revision;
+  /**
+   * The student's registrations and grades keyed by module code, built from the lists on first
+   * use and kept in step with them afterwards, so looking up a module does not scan the lists.
+   * Additions are applied to an index that has been built, while removals and replaced lists
+   * drop it to be rebuilt, as a module can hold an earlier entry that must show again.
+   */
+  @Transient
+  private Map<String, Registration> registrationsByModule;
+  @Transient
+  private Map<String, Grade> gradesByModule;
   
   /**
    * Default constructor required by JPA.
@@ -134,6 +175,44 @@ public class Student {
     return this.studentRegistration;
   }
 
+  /**
+   * A getter method for the running sum of the student's scores.
+   *
+   * @return the sum of every score in the student's grade list
+   */
+  public long getGradeTotal() {
+    return this.gradeTotal;
+  }
+
+  /**
+   * A getter method for the running number of the student's grades.
+   *
+   * @return the number of grades in the student's grade list
+   */
+  public int getGradeCount() {
+    return this.gradeCount;
+  }
+
+  /**
+   * A getter method for the student's revision.
+   *
+   * @return the number of changes made to the student's registrations and grades
+   */
+  public long getRevision() {
+    return this.revision;
+  }
+
+  /**
+   * A setter method for the student's revision.
+   * This is used when a student is overwritten as a whole, so the revision of the stored student
+   * can be carried forward rather than starting again.
+   *
+   * @param revision which is the new revision of the student
+   */
+  public void setRevision(long revision) {
+    this.revision = revision;
+  }
+
   /**
    * A setter method for the student's firstName.
    *
@@ -186,9 +265,17 @@ public class Student {
    */
   public void setGradeList(List<Grade> gradeList) {
     this.gradeList.clear();
+    this.gradeTotal = 0;
+    this.gradeCount = 0;
     if (gradeList != null) {
       this.gradeList.addAll(gradeList);
+      for (Grade grade : gradeList) {
+        this.gradeTotal += grade.getScore();
+      }
+      this.gradeCount = gradeList.size();
     }
+    this.gradesByModule = null;
+    this.revision++;
   }
 
   /**
@@ -201,6 +288,8 @@ public class Student {
     if (studentRegistration != null) {
       this.studentRegistration.addAll(studentRegistration);
     }
+    this.registrationsByModule = null;
+    this.revision++;
   }
 
   /**
@@ -212,29 +301,94 @@ public class Student {
    */
   public void addGrade(Grade grade) {
     this.gradeList.add(grade);
+    if (this.gradesByModule != null) {
+      this.gradesByModule.put(grade.getModule().getCode(), grade);
+    }
     grade.setStudent(this);
+    this.gradeTotal += grade.getScore();
+    this.gradeCount++;
+    this.revision++;
+  }
+
+  /**
+   * Changes the score of one of the student's grades
+   * The running total is adjusted by the difference between the old and new score, so the grade
+   * list does not need to be loaded.
+   *
+   * @param grade which is the grade object whose score is changing.
+   * @param score which is the new score of the grade.
+   */
+  public void updateGrade(Grade grade, int score) {
+    this.gradeTotal += score - grade.getScore();
+    grade.setScore(score);
+    this.revision++;
+  }
+
+  /**
+   * Records a score that has been written straight to the database
+   * The running total and number of grades are adjusted as if the grade had been added or
+   * updated through the grade list, which is left untouched.
+   *
+   * @param previousScore which is the score the grade had before, or null if it is a new grade.
+   * @param score which is the score that has been stored.
+   */
+  public void recordScore(Integer previousScore, int score) {
+    if (previousScore == null) {
+      this.gradeTotal += score;
+      this.gradeCount++;
+    } else {
+      this.gradeTotal += score - previousScore;
+    }
+    this.revision++;
+  }
+
+  /**
+   * Removes a grade from the student's list of grades
+   * The grade's score is taken off the running total, so it no longer contributes to the
+   * student's average. Nothing happens if the grade is not in the student's grade list.
+   *
+   * @param grade which is the grade object that wants to be removed from the grade list.
+   */
+  public void removeGrade(Grade grade) {
+    if (this.gradeList.remove(grade)) {
+      this.gradesByModule = null;
+      this.gradeTotal -= grade.getScore();
+      this.gradeCount--;
+      this.revision++;
+    }
+  }
+
+  /**
+   * Overwrites the running sum and number of the student's grades
+   * This is used to repair the stored values when they have drifted from the grades that are
+   * actually recorded, and does not change the grade list itself.
+   *
+   * @param gradeTotal which is the sum of the student's scores
+   * @param gradeCount which is the number of the student's grades
+   */
+  public void setGradeTotals(long gradeTotal, int gradeCount) {
+    this.gradeTotal = gradeTotal;
+    this.gradeCount = gradeCount;
+    this.revision++;
   }
   
   /**
    * Calculates and returns the average score of the student's grades.
+   * The average is taken from the running sum and number of grades, so the grade list is not
+   * loaded.
    *
    * @return the average score as a float, or 0 if the student has no grades.
    */
   public float computeAverage() {
-    if (this.gradeList.isEmpty()) {
+    if (this.gradeCount == 0) {
       return 0;
     }
-
-    int sum = 0;
-    for (Grade grade : this.gradeList) {
-      sum += grade.getScore();
-    }
-    return (float) sum / gradeList.size();
+    return (float) this.gradeTotal / this.gradeCount;
   }
   
   /**
    * Retrieves the Grade object from the grade list for a specified module
-   * This method searched the student's grade list for a grade associated with the specified module.
+   * This method looks up the student's registration and grade for the specified module by its code.
    * If the module is found in the student registration, and if a matching grade is found, it will
    * be returned. Otherwise, if the module is found in the student registration but a matching
    * grade is not found then a NoGradeAvailableException is thrown.
@@ -247,29 +401,25 @@ public class Student {
    * @throws NoRegistrationException if the module is not registered.
  */
   public Grade getGrade(Module module) throws NoGradeAvailableException, NoRegistrationException {
-    ArrayList<Module> registeredModules = new ArrayList<>();
-    for (Registration registration : this.studentRegistration) {
-      registeredModules.add(registration.getModule());
-    }
-
-    if (registeredModules.contains(module)) {
-      boolean gradePresent = false;
-      Grade g = new Grade();
-      for (Grade grade : this.gradeList) {
-        if (grade.getModule().getCode().equals(module.getCode())) {
-          g = grade;
-          gradePresent = true;
-        }
-      }
-      if (gradePresent) {
-        return g;
-      } else {
-        throw new NoGradeAvailableException("There is no grade available for this module.");
-      }
-    } else {
+    if (!isRegisteredFor(module.getCode())) {
       throw new NoRegistrationException("Student with Id " + this.id
               + " is not registered for module with code " + module.getCode());
     }
+    Grade grade = gradeIndex().get(module.getCode());
+    if (grade == null) {
+      throw new NoGradeAvailableException("There is no grade available for this module.");
+    }
+    return grade;
+  }
+
+  /**
+   * Checks whether the student is registered for a module.
+   *
+   * @param moduleCode which is the code of the module.
+   * @return true if one of the student's registrations is for the module.
+   */
+  public boolean isRegisteredFor(String moduleCode) {
+    return registrationIndex().containsKey(moduleCode);
   }
   
   /**
@@ -278,11 +428,59 @@ public class Student {
    * new registration object into the student's registration list.
    *
    * @param module which is the module that we want to register.
+   * @return the new registration, so that it can be saved without saving the whole student.
    */
-  public void registerModule(Module module) {
+  public Registration registerModule(Module module) {
     Registration newRegister = new Registration(module);
     newRegister.setStudent(this);
     this.studentRegistration.add(newRegister);
+    if (this.registrationsByModule != null) {
+      this.registrationsByModule.put(module.getCode(), newRegister);
+    }
+    this.revision++;
+    return newRegister;
+  }
+
+  /**
+   * Removes a registration from the student's list of registrations
+   * Nothing happens if the registration is not in the student's registration list.
+   *
+   * @param registration which is the registration that wants to be removed.
+   */
+  public void removeRegistration(Registration registration) {
+    if (this.studentRegistration.remove(registration)) {
+      this.registrationsByModule = null;
+      this.revision++;
+    }
+  }
+
+  /**
+   * Returns the student's registrations keyed by module code, building the index if it has not
+   * been built yet or has been dropped since.
+   */
+  private Map<String, Registration> registrationIndex() {
+    if (this.registrationsByModule == null) {
+      this.registrationsByModule = new HashMap<>();
+      for (Registration registration : this.studentRegistration) {
+        this.registrationsByModule.put(registration.getModule().getCode(), registration);
+      }
+    }
+    return this.registrationsByModule;
+  }
+
+  /**
+   * Returns the student's grades keyed by module code, building the index if it has not been
+   * built yet or has been dropped since. When a module has several grades the one added last is
+   * kept.
+   */
+  private Map<String, Grade> gradeIndex() {
+    if (this.gradesByModule == null) {
+      this.gradesByModule = new HashMap<>();
+      for (Grade grade : this.gradeList) {
+        this.gradesByModule.put(grade.getModule().getCode(), grade);
+      }
+    }
+    return this.gradesByModule;
   }
 
 }
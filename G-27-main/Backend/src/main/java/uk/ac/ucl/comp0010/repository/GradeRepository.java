@@ -1,7 +1,25 @@
 package uk.ac.ucl.comp0010.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
+import uk.ac.ucl.comp0010.dto.GradeExportRow;
+import uk.ac.ucl.comp0010.dto.GradeScore;
+import uk.ac.ucl.comp0010.dto.GradeSummary;
+import uk.ac.ucl.comp0010.dto.GradeView;
+import uk.ac.ucl.comp0010.dto.ModuleStatistics;
 import uk.ac.ucl.comp0010.model.Grade;
 import uk.ac.ucl.comp0010.model.Module;
 import uk.ac.ucl.comp0010.model.Student;
@@ -9,13 +27,142 @@ import uk.ac.ucl.comp0010.model.Student;
 /**
  * The Repository class for interfacing with the Grade POJOs.
  */
-public interface GradeRepository  extends CrudRepository<Grade, Long> {
+public interface GradeRepository  extends CrudRepository<Grade, Long>,
+    PagingAndSortingRepository<Grade, Long> {
   /**
    * Searches through the database and finds a grade that has a unique combination of
    * module and student.
    *
    * @param module The module for which the grade has been achieved
    * @param student The student to whom the grade belongs
+   * @return The matching grade, cached in the query cache until the Grade table changes
    */
+  @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
   Optional<Grade> findByModuleAndStudent(Module module, Student student);
+
+  /**
+   * Finds the ID of the student a grade belongs to without loading the grade or the student.
+   *
+   * @param id The ID of the grade
+   * @return The ID of the student, or empty if there is no grade with the ID
+   */
+  @Query("select g.student.id from Grade g where g.id = :id")
+  Optional<Long> findStudentIdById(@Param("id") long id);
+
+  /**
+   * Finds the ID and score of a student's grade in a module, locking the grade until the
+   * transaction ends so the score cannot change before it is replaced.
+   *
+   * @param studentId The ID of the student to whom the grade belongs
+   * @param moduleCode The code of the module for which the grade has been achieved
+   * @return The grade's ID and current score, or empty if the student has no grade for the module
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select new uk.ac.ucl.comp0010.dto.GradeScore(g.id, g.score) from Grade g "
+      + "where g.student.id = :studentId and g.module.code = :moduleCode")
+  Optional<GradeScore> findScoreForUpdate(@Param("studentId") long studentId,
+      @Param("moduleCode") String moduleCode);
+
+  /**
+   * Inserts a student's grade for a module, or replaces its score if they already have one, in a
+   * single MERGE statement that relies on the unique constraint over student and module.
+   * Only the Grade table is named as affected, so the rest of the second-level cache survives.
+   *
+   * @param id The ID to give the grade if it is inserted, ignored if it is updated
+   * @param studentId The ID of the student to whom the grade belongs
+   * @param moduleCode The code of the module for which the grade has been achieved
+   * @param score The score to store
+   * @return The number of rows written, which is always one
+   */
+  @Modifying
+  @QueryHints(@QueryHint(name = AvailableHints.HINT_NATIVE_SPACES, value = "grade"))
+  @Query(nativeQuery = true, value = "merge into Grade g "
+      + "using (values (:id, :studentId, :moduleCode, :score)) "
+      + "as s (Id, Student_Id, Module_Code, Score) "
+      + "on g.Student_Id = s.Student_Id and g.Module_Code = s.Module_Code "
+      + "when matched then update set Score = s.Score "
+      + "when not matched then insert (Id, Student_Id, Module_Code, Score) "
+      + "values (s.Id, s.Student_Id, s.Module_Code, s.Score)")
+  int upsert(@Param("id") long id, @Param("studentId") long studentId,
+      @Param("moduleCode") String moduleCode, @Param("score") int score);
+
+  /**
+   * Finds every grade that has been awarded for a single module.
+   *
+   * @param moduleCode The code of the module for which the grades have been achieved
+   * @return The grades recorded against the module
+   */
+  List<Grade> findByModuleCode(String moduleCode);
+
+  /**
+   * Finds the grades of a student together with their modules, without loading the student.
+   *
+   * @param studentId The ID of the student to whom the grades belong
+   * @return The grades of the student, in the order in which they were created
+   */
+  @Query("select new uk.ac.ucl.comp0010.dto.GradeSummary(g.id, g.score, m) "
+      + "from Grade g join g.module m where g.student.id = :studentId order by g.id")
+  List<GradeSummary> findSummariesByStudentId(@Param("studentId") long studentId);
+
+  /**
+   * Finds every grade that one of the given students has achieved in one of the given modules.
+   *
+   * @param studentIds The IDs of the students to whom the grades belong
+   * @param moduleCodes The codes of the modules for which the grades have been achieved
+   * @return The matching grades
+   */
+  @Query("select g from Grade g "
+      + "where g.student.id in :studentIds and g.module.code in :moduleCodes")
+  List<Grade> findByStudentIdsAndModuleCodes(@Param("studentIds") Collection<Long> studentIds,
+      @Param("moduleCodes") Collection<String> moduleCodes);
+
+  /**
+   * Aggregates the grades of a single module in one statement, returning the count, sum, minimum
+   * and maximum of the scores together with the number of scores in each pie chart band.
+   * Only grades belonging to students who are registered for the module are counted.
+   *
+   * @param moduleCode The code of the module whose grades are aggregated
+   * @return The statistics of the module, with a count of zero if no grades exist
+   */
+  @Query("select new uk.ac.ucl.comp0010.dto.ModuleStatistics(count(g), "
+      + "coalesce(sum(g.score), 0L), min(g.score), max(g.score), "
+      + "coalesce(sum(case when g.score < 40 then 1L else 0L end), 0L), "
+      + "coalesce(sum(case when g.score >= 40 and g.score < 50 then 1L else 0L end), 0L), "
+      + "coalesce(sum(case when g.score >= 50 and g.score < 60 then 1L else 0L end), 0L), "
+      + "coalesce(sum(case when g.score >= 60 and g.score < 70 then 1L else 0L end), 0L), "
+      + "coalesce(sum(case when g.score >= 70 then 1L else 0L end), 0L)) "
+      + "from Grade g where g.module.code = :moduleCode and exists ("
+      + "select r.id from Registration r where r.student = g.student and r.module = g.module)")
+  ModuleStatistics findStatisticsByModuleCode(@Param("moduleCode") String moduleCode);
+
+  /**
+   * Lists the grades with IDs greater than the given one, joined with the name of their student
+   * and module, in ID order.
+   *
+   * @param afterId The ID to list the grades after
+   * @param limit The maximum number of grades to return
+   * @return The grades with their student and module names
+   */
+  @Query("select new uk.ac.ucl.comp0010.dto.GradeView(g.id, g.score, s.id, s.firstName, "
+      + "s.lastName, m.code, m.name) "
+      + "from Grade g join g.student s join g.module m "
+      + "where g.id > :afterId order by g.id")
+  List<GradeView> findViewsAfter(@Param("afterId") long afterId, Limit limit);
+
+  /**
+   * Streams every grade, joined with its student and module, in ID order.
+   * The rows are read through a forward-only cursor a fetch at a time and are not managed by the
+   * persistence context, so the stream must be consumed inside a read-only transaction and
+   * closed afterwards, and memory does not grow with the number of grades.
+   *
+   * @return The grades as export rows
+   */
+  @QueryHints({
+      @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("select new uk.ac.ucl.comp0010.dto.GradeExportRow(s.id, s.firstName, s.lastName, "
+      + "m.code, m.name, g.score) "
+      + "from Grade g join g.student s join g.module m order by g.id")
+  Stream<GradeExportRow> streamExportRows();
 }
@@ -0,0 +1,29 @@
+package uk.ac.ucl.comp0010.repository;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.transaction.annotation.Transactional;
+import uk.ac.ucl.comp0010.model.ImportCheckpoint;
+
+/**
+ * The repository class for interfacing with the ImportCheckpoint POJO.
+ * It is not exported over REST, as a checkpoint must only move with the batches it counts.
+ */
+@RepositoryRestResource(exported = false)
+public interface ImportCheckpointRepository extends CrudRepository<ImportCheckpoint, String> {
+  /**
+   * Moves a checkpoint on to the given row, without loading it. It is meant to be called in the
+   * transaction of the batch that ends at the row.
+   *
+   * @param name The name of the import
+   * @param rowsCommitted The number of data rows of the file committed so far
+   * @return The number of checkpoints moved on, which is 1 if the checkpoint exists
+   */
+  @Transactional
+  @Modifying
+  @Query("update ImportCheckpoint c set c.rowsCommitted = :rowsCommitted where c.name = :name")
+  int advance(@Param("name") String name, @Param("rowsCommitted") long rowsCommitted);
+}
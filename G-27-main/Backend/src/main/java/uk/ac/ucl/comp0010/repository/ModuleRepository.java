@@ -1,11 +1,43 @@
 package uk.ac.ucl.comp0010.repository;
 
+import java.util.List;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
 import uk.ac.ucl.comp0010.model.Module;
 
 /**
  * The repository class for interfacing with the Module POJO.
  */
-public interface ModuleRepository extends CrudRepository<Module, String> {
+public interface ModuleRepository extends CrudRepository<Module, String>,
+    PagingAndSortingRepository<Module, String> {
+  /**
+   * Lists the modules whose codes sort after the given one, in code order.
+   *
+   * @param code The code to list the modules after
+   * @param limit The maximum number of modules to return
+   * @return The modules after the code
+   */
+  List<Module> findByCodeGreaterThanOrderByCode(String code, Limit limit);
 
-}
+  /**
+   * Streams the code of every module, which must be consumed inside a transaction and closed
+   * afterwards.
+   *
+   * @return The module codes
+   */
+  @Query("select m.code from Module m")
+  Stream<String> streamCodes();
+
+  /**
+   * Returns a reference to the module with the given code without loading it, for use where only
+   * its key is needed, such as setting an association. It is served by the JPA repository
+   * implementation, which every repository here is backed by.
+   *
+   * @param code The code of the module
+   * @return A lazily loaded reference to the module
+   */
+  Module getReferenceById(String code);
+}
\ No newline at end of file
@@ -0,0 +1,76 @@
+package uk.ac.ucl.comp0010.repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.util.List;
+import java.util.Optional;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.transaction.annotation.Transactional;
+import uk.ac.ucl.comp0010.model.ModuleStats;
+
+/**
+ * The repository class for interfacing with the ModuleStats POJO.
+ * It is not exported over REST, as the statistics must only change alongside the grades.
+ */
+@RepositoryRestResource(exported = false)
+public interface ModuleStatsRepository extends CrudRepository<ModuleStats, String> {
+  /**
+   * Lists the codes of the modules that have materialised statistics, in code order.
+   *
+   * @return The module codes
+   */
+  @Query("select s.moduleCode from ModuleStats s order by s.moduleCode")
+  List<String> findModuleCodes();
+
+  /**
+   * Finds the statistics of a module, locking their row until the transaction ends so that the
+   * counts and revision cannot be changed by another transaction between being read and written
+   * back.
+   *
+   * @param moduleCode The code of the module
+   * @return The statistics, or empty if the module has none yet
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select s from ModuleStats s where s.moduleCode = :moduleCode")
+  Optional<ModuleStats> findForUpdateByModuleCode(@Param("moduleCode") String moduleCode);
+
+  /**
+   * Inserts empty statistics for a module unless it already has a row, in a single statement
+   * that relies on the primary key, so two transactions creating the row at once do not fail.
+   * Only the Module_Stats table is named as affected, so the rest of the second-level cache
+   * survives.
+   *
+   * @param moduleCode The code of the module
+   * @return One if the row was inserted, or zero if it already existed
+   */
+  @Modifying
+  @QueryHints(@QueryHint(name = AvailableHints.HINT_NATIVE_SPACES, value = "module_stats"))
+  @Query(nativeQuery = true, value = "insert into Module_Stats (Module_Code, Grade_Count, "
+      + "Grade_Total, Band_0_40, Band_40_50, Band_50_60, Band_60_70, Band_70_100, Revision) "
+      + "values (:moduleCode, 0, 0, 0, 0, 0, 0, 0, 0) on conflict do nothing")
+  int insertIfAbsent(@Param("moduleCode") String moduleCode);
+
+  /**
+   * Empties the statistics of a module that has been deleted, keeping the row so its revision
+   * carries on from where it was if a module with the same code is created again. Only the
+   * Module_Stats table is named as affected, so the rest of the second-level cache survives.
+   *
+   * @param moduleCode The code of the module
+   * @return One if the module had statistics, or zero otherwise
+   */
+  @Transactional
+  @Modifying
+  @QueryHints(@QueryHint(name = AvailableHints.HINT_NATIVE_SPACES, value = "module_stats"))
+  @Query(nativeQuery = true, value = "update Module_Stats set Grade_Count = 0, Grade_Total = 0, "
+      + "Minimum_Score = null, Maximum_Score = null, Band_0_40 = 0, Band_40_50 = 0, "
+      + "Band_50_60 = 0, Band_60_70 = 0, Band_70_100 = 0, Revision = Revision + 1 "
+      + "where Module_Code = :moduleCode")
+  int resetByModuleCode(@Param("moduleCode") String moduleCode);
+}
@@ -1,7 +1,19 @@
 package uk.ac.ucl.comp0010.repository;
 
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
+import uk.ac.ucl.comp0010.dto.GradeExportRow;
+import uk.ac.ucl.comp0010.dto.RegisteredStudent;
+import uk.ac.ucl.comp0010.dto.StudentModuleKey;
 import uk.ac.ucl.comp0010.model.Module;
 import uk.ac.ucl.comp0010.model.Registration;
 import uk.ac.ucl.comp0010.model.Student;
@@ -9,14 +21,121 @@ import uk.ac.ucl.comp0010.model.Student;
 /**
  * The repository class for interfacing with the Registration POJO.
  */
-public interface RegistrationRepository extends CrudRepository<Registration, Long> {
+public interface RegistrationRepository extends CrudRepository<Registration, Long>,
+    PagingAndSortingRepository<Registration, Long> {
   /**
    * Searches through the database and finds a registration that has a unique
    * combination of module and student.
    *
    * @param module The module for which the registration has been achieved
    * @param student The student to whom the registration belongs
+   * @return The matching registration, cached in the query cache until the Registration table
+   *     changes
    */
+  @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
   Optional<Registration> findByModuleAndStudent(Module module, Student student);
-  
+
+  /**
+   * Checks whether a student is registered for a module without loading the student, the module
+   * or the registration.
+   *
+   * @param studentId The ID of the student
+   * @param moduleCode The code of the module
+   * @return true if the registration exists
+   */
+  boolean existsByStudentIdAndModuleCode(long studentId, String moduleCode);
+
+  /**
+   * Finds the modules a student is registered for, in the order in which they registered.
+   *
+   * @param studentId The ID of the student
+   * @return The modules the student is registered for
+   */
+  @Query("select m from Registration r join r.module m "
+      + "where r.student.id = :studentId order by r.id")
+  List<Module> findModulesByStudentId(@Param("studentId") long studentId);
+
+  /**
+   * Finds the students registered for a module with their score in it, as plain rows in a single
+   * statement, so the number of statements does not grow with the number of students.
+   * The students are returned in the order in which they were registered, and students without a
+   * grade for the module have a null score.
+   *
+   * @param moduleCode The code of the module whose students are requested
+   * @return The registered students with their scores
+   */
+  @Query("select new uk.ac.ucl.comp0010.dto.RegisteredStudent(s.id, s.firstName, s.lastName, "
+      + "s.username, s.email, g.score) "
+      + "from Registration r join r.student s "
+      + "left join Grade g on g.student = s and g.module = r.module "
+      + "where r.module.code = :moduleCode order by r.id")
+  List<RegisteredStudent> findRegisteredStudentsByModuleCode(
+      @Param("moduleCode") String moduleCode);
+
+  /**
+   * Finds which of the given students are registered for which of the given modules, without
+   * loading the registrations themselves.
+   *
+   * @param studentIds The IDs of the students to check
+   * @param moduleCodes The codes of the modules to check
+   * @return A key for every registration between one of the students and one of the modules
+   */
+  @Query("select new uk.ac.ucl.comp0010.dto.StudentModuleKey(r.student.id, r.module.code) "
+      + "from Registration r "
+      + "where r.student.id in :studentIds and r.module.code in :moduleCodes")
+  List<StudentModuleKey> findKeysByStudentIdsAndModuleCodes(
+      @Param("studentIds") Collection<Long> studentIds,
+      @Param("moduleCodes") Collection<String> moduleCodes);
+
+  /**
+   * Finds the codes of the modules a student is registered for, in code order, without loading
+   * the modules.
+   *
+   * @param studentId The ID of the student
+   * @return The codes of the student's modules
+   */
+  @Query("select r.module.code from Registration r where r.student.id = :studentId "
+      + "order by r.module.code")
+  List<String> findModuleCodesByStudentId(@Param("studentId") long studentId);
+
+  /**
+   * Streams the roster of a module: every registered student with their score, in student ID
+   * order. Students without a grade for the module have a null score.
+   * Like {@link GradeRepository#streamExportRows()}, the stream must be consumed inside a
+   * read-only transaction and closed afterwards.
+   *
+   * @param moduleCode The code of the module
+   * @return The registrations of the module as export rows
+   */
+  @QueryHints({
+      @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("select new uk.ac.ucl.comp0010.dto.GradeExportRow(s.id, s.firstName, s.lastName, "
+      + "m.code, m.name, g.score) "
+      + "from Registration r join r.student s join r.module m "
+      + "left join Grade g on g.student = s and g.module = m "
+      + "where m.code = :moduleCode order by s.id")
+  Stream<GradeExportRow> streamRosterByModuleCode(@Param("moduleCode") String moduleCode);
+
+  /**
+   * Streams the transcript of a student: every module they are registered for with their score,
+   * in module code order. Modules without a grade have a null score.
+   * Like {@link GradeRepository#streamExportRows()}, the stream must be consumed inside a
+   * read-only transaction and closed afterwards.
+   *
+   * @param studentId The ID of the student
+   * @return The registrations of the student as export rows
+   */
+  @QueryHints({
+      @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("select new uk.ac.ucl.comp0010.dto.GradeExportRow(s.id, s.firstName, s.lastName, "
+      + "m.code, m.name, g.score) "
+      + "from Registration r join r.student s join r.module m "
+      + "left join Grade g on g.student = s and g.module = m "
+      + "where s.id = :studentId order by m.code")
+  Stream<GradeExportRow> streamTranscriptByStudentId(@Param("studentId") long studentId);
+
 }
\ No newline at end of file
@@ -1,11 +1,145 @@
 package uk.ac.ucl.comp0010.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import uk.ac.ucl.comp0010.dto.GradeTotalsDrift;
+import uk.ac.ucl.comp0010.dto.StudentSummary;
 import uk.ac.ucl.comp0010.model.Student;
 
 /**
  * The Repository class for interfacing with the Student POJOs.
  */
-public interface StudentRepository extends CrudRepository<Student, Long> {
+public interface StudentRepository extends CrudRepository<Student, Long>,
+    PagingAndSortingRepository<Student, Long> {
+  /**
+   * Recomputes every student's grade totals from the Grade table and returns the students whose
+   * stored totals differ from them.
+   *
+   * @return The students whose stored totals have drifted, with the stored and actual values
+   */
+  @Query("select new uk.ac.ucl.comp0010.dto.GradeTotalsDrift(s.id, s.gradeTotal, s.gradeCount, "
+      + "coalesce(sum(g.score), 0L), count(g)) "
+      + "from Student s left join s.gradeList g "
+      + "group by s.id, s.gradeTotal, s.gradeCount "
+      + "having s.gradeTotal <> coalesce(sum(g.score), 0L) or s.gradeCount <> count(g)")
+  List<GradeTotalsDrift> findGradeTotalsDrift();
 
+  /**
+   * Finds the personal details of a student without loading their registrations or grades.
+   *
+   * @param id The ID of the student
+   * @return The personal details, or empty if there is no student with the ID
+   */
+  @Query("select new uk.ac.ucl.comp0010.dto.StudentSummary(s.id, s.firstName, s.lastName, "
+      + "s.username, s.email) from Student s where s.id = :id")
+  Optional<StudentSummary> findSummaryById(@Param("id") long id);
+
+  /**
+   * Lists the personal details of the students with IDs greater than the given one, in ID order,
+   * without loading their registrations or grades.
+   *
+   * @param afterId The ID to list the students after
+   * @param limit The maximum number of students to return
+   * @return The personal details of the students after the ID
+   */
+  @Query("select new uk.ac.ucl.comp0010.dto.StudentSummary(s.id, s.firstName, s.lastName, "
+      + "s.username, s.email) from Student s where s.id > :afterId order by s.id")
+  List<StudentSummary> findSummariesAfter(@Param("afterId") long afterId, Limit limit);
+
+  /**
+   * Streams the personal details of every student, without loading their registrations or
+   * grades. The rows are read through a cursor a fetch at a time, so the stream must be consumed
+   * inside a read-only transaction and closed afterwards.
+   *
+   * @return The personal details of the students
+   */
+  @QueryHints({
+      @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"),
+      @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("select new uk.ac.ucl.comp0010.dto.StudentSummary(s.id, s.firstName, s.lastName, "
+      + "s.username, s.email) from Student s")
+  Stream<StudentSummary> streamSummaries();
+
+  /**
+   * Finds a student, locking their row until the transaction ends so that their running grade
+   * totals and revision cannot be changed by another transaction between being read and written
+   * back. The student must not already have been loaded in the transaction, or the stale copy
+   * is returned.
+   *
+   * @param id The ID of the student
+   * @return The student, or empty if there is no student with the ID
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select s from Student s where s.id = :id")
+  Optional<Student> findForUpdateById(@Param("id") long id);
+
+  /**
+   * Finds the students with the given IDs, locking their rows in ID order until the transaction
+   * ends, so two transactions that lock overlapping students cannot deadlock.
+   *
+   * @param ids The IDs of the students
+   * @return The students that exist, in ID order
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select s from Student s where s.id in :ids order by s.id")
+  List<Student> findAllForUpdateById(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Finds the revision of a student without loading the student.
+   *
+   * @param id The ID of the student
+   * @return The revision, or empty if there is no student with the ID
+   */
+  @Query("select s.revision from Student s where s.id = :id")
+  Optional<Long> findRevisionById(@Param("id") long id);
+
+  /**
+   * Moves on the revision of a student in the database itself, so the move cannot be lost to a
+   * concurrent write that read the same revision.
+   *
+   * @param id The ID of the student
+   * @return The number of students whose revision was moved on
+   */
+  @Transactional
+  @Modifying
+  @Query("update Student s set s.revision = s.revision + 1 where s.id = :id")
+  int incrementRevisionById(@Param("id") long id);
+
+  /**
+   * Moves on the revision of every student registered for a module, for when a change to the
+   * module alters the details of all of them.
+   *
+   * @param moduleCode The code of the module
+   * @return The number of students whose revision was moved on
+   */
+  @Transactional
+  @Modifying
+  @Query("update Student s set s.revision = s.revision + 1 where s.id in "
+      + "(select r.student.id from Registration r where r.module.code = :moduleCode)")
+  int incrementRevisionsByModuleCode(@Param("moduleCode") String moduleCode);
+
+  /**
+   * Returns a reference to the student with the given ID without loading it, for use where only
+   * its key is needed, such as setting an association. It is served by the JPA repository
+   * implementation, which every repository here is backed by.
+   *
+   * @param id The ID of the student
+   * @return A lazily loaded reference to the student
+   */
+  Student getReferenceById(Long id);
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package uk.ac.ucl.comp0010.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Helpers shared by the services that preload the entities referenced by a batch request.
+ */
+final class Batches {
+  /**
+   * The largest number of IDs bound into a single IN list when preloading a batch, which keeps
+   * every query well inside the bind parameter limits of the supported databases.
+   */
+  static final int IN_LIST_SIZE = 1000;
+
+  private Batches() {}
+
+  /**
+   * Splits a collection into lists of at most {@link #IN_LIST_SIZE} values, so each list can be
+   * bound into one IN query.
+   *
+   * @param values the values to split
+   * @param <T> the type of the values
+   * @return the values, in lists of at most {@link #IN_LIST_SIZE}
+   */
+  static <T> List<List<T>> chunks(Collection<T> values) {
+    List<T> list = List.copyOf(values);
+    List<List<T>> chunks = new ArrayList<>();
+    for (int start = 0; start < list.size(); start += IN_LIST_SIZE) {
+      chunks.add(list.subList(start, Math.min(list.size(), start + IN_LIST_SIZE)));
+    }
+    return chunks;
+  }
+}
@@ -0,0 +1,52 @@
+package uk.ac.ucl.comp0010.service;
+
+import org.springframework.data.rest.core.annotation.HandleAfterCreate;
+import org.springframework.data.rest.core.annotation.HandleAfterDelete;
+import org.springframework.data.rest.core.annotation.HandleAfterSave;
+import org.springframework.data.rest.core.annotation.RepositoryEventHandler;
+import org.springframework.stereotype.Component;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Student;
+
+/**
+ * Evicts cached modules and students when they are changed or deleted through the Spring Data
+ * REST endpoints, which write to the repositories without going through the controllers.
+ */
+@Component
+@RepositoryEventHandler
+public class CacheEvictionHandler {
+  private final LookupService lookupService;
+
+  /**
+   * Constructs a new CacheEvictionHandler.
+   *
+   * @param lookupService the service whose caches are evicted
+   */
+  public CacheEvictionHandler(LookupService lookupService) {
+    this.lookupService = lookupService;
+  }
+
+  /**
+   * Evicts a module after it has been created, updated or deleted.
+   *
+   * @param module the module that was written
+   */
+  @HandleAfterCreate
+  @HandleAfterSave
+  @HandleAfterDelete
+  public void evictModule(Module module) {
+    lookupService.evictModule(module.getCode());
+  }
+
+  /**
+   * Evicts a student after they have been created, updated or deleted.
+   *
+   * @param student the student that was written
+   */
+  @HandleAfterCreate
+  @HandleAfterSave
+  @HandleAfterDelete
+  public void evictStudent(Student student) {
+    lookupService.evictStudentSummary(student.getId());
+  }
+}
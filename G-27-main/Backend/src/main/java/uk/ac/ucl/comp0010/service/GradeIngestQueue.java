@@ -0,0 +1,204 @@
+package uk.ac.ucl.comp0010.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import uk.ac.ucl.comp0010.dto.GradeTicket;
+import uk.ac.ucl.comp0010.dto.GradeTicket.Status;
+import uk.ac.ucl.comp0010.dto.GradeUpload;
+import uk.ac.ucl.comp0010.dto.GradeUploadResult;
+import uk.ac.ucl.comp0010.dto.StudentModuleKey;
+
+/**
+ * Service class that queues grades and writes them behind the requests that submitted them.
+ * Submissions wait in a bounded in-memory queue, and a single writer thread takes whatever has
+ * queued up, up to grades.ingest.batch-size at a time, and records it with
+ * {@link GradeService#addGrades(List)} in one transaction. Submissions for the same student and
+ * module in one batch are coalesced, so only the latest is written. A burst of submissions
+ * therefore holds one connection for a batch instead of one per request, and a full queue turns
+ * submissions away rather than letting them pile up.
+ * Each submission gets a ticket whose state is kept for as long as grades.ingest.tickets.spec
+ * allows. The queue and the tickets are held in memory, so the queue is drained when the
+ * application shuts down, but submissions still queued are lost if it stops abruptly.
+ */
+@Service
+public class GradeIngestQueue implements SmartLifecycle {
+  private static final Logger LOGGER = LoggerFactory.getLogger(GradeIngestQueue.class);
+
+  private final GradeService gradeService;
+  private final BlockingQueue<Submission> queue;
+  private final Cache<Long, Status> tickets;
+  private final AtomicLong lastTicket = new AtomicLong();
+  private final int batchSize;
+  private final Counter rejected;
+  private volatile boolean running;
+  private volatile boolean stopped;
+  private Thread writer;
+
+  private record Submission(long ticket, GradeUpload upload) {}
+
+  /**
+   * Constructs a new GradeIngestQueue, which starts writing once the application has started.
+   *
+   * @param gradeService the service that records each batch of grades
+   * @param capacity the most submissions that may wait to be written
+   * @param batchSize the most submissions written in one transaction
+   * @param ticketsSpec the Caffeine spec of the store of ticket states
+   * @param meterRegistry the registry of the queue's metrics
+   */
+  public GradeIngestQueue(GradeService gradeService,
+      @Value("${grades.ingest.queue-capacity}") int capacity,
+      @Value("${grades.ingest.batch-size}") int batchSize,
+      @Value("${grades.ingest.tickets.spec}") String ticketsSpec, MeterRegistry meterRegistry) {
+    this.gradeService = gradeService;
+    this.queue = new ArrayBlockingQueue<>(capacity);
+    this.tickets = Caffeine.from(ticketsSpec).build();
+    this.batchSize = batchSize;
+    Gauge.builder("grades.ingest.queue.size", queue, Collection::size)
+        .description("Grade submissions waiting to be written")
+        .register(meterRegistry);
+    this.rejected = Counter.builder("grades.ingest.rejected")
+        .description("Grade submissions turned away because the queue was full")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Queues a grade to be written.
+   *
+   * @param upload the grade, with every field set
+   * @return the ticket of the submission, or empty if the queue is full or shutting down
+   */
+  public OptionalLong submit(GradeUpload upload) {
+    long ticket = lastTicket.incrementAndGet();
+    // The state is stored first, so the writer cannot record an outcome that is then overwritten
+    tickets.put(ticket, Status.QUEUED);
+    Submission submission = new Submission(ticket, upload);
+    // A submission queued just as the application stops may miss the writer's last drain, so it
+    // is taken back out unless the writer has already taken it
+    if (stopped || !queue.offer(submission) || (stopped && queue.remove(submission))) {
+      tickets.invalidate(ticket);
+      rejected.increment();
+      return OptionalLong.empty();
+    }
+    return OptionalLong.of(ticket);
+  }
+
+  /**
+   * Returns the state of a submission.
+   *
+   * @param ticket the ticket of the submission
+   * @return the state, or empty if there is no such ticket or it has expired
+   */
+  public Optional<GradeTicket> status(long ticket) {
+    return Optional.ofNullable(tickets.getIfPresent(ticket))
+        .map(status -> new GradeTicket(ticket, status));
+  }
+
+  @Override
+  public void start() {
+    stopped = false;
+    running = true;
+    writer = Thread.ofPlatform().name("grade-ingest-writer").daemon().start(this::drain);
+  }
+
+  @Override
+  public void stop() {
+    stopped = true;
+    running = false;
+    try {
+      writer.join();
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  private void drain() {
+    List<Submission> batch = new ArrayList<>(batchSize);
+    while (running || !queue.isEmpty()) {
+      try {
+        Submission first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        queue.drainTo(batch, batchSize - 1);
+        write(batch);
+      } catch (InterruptedException exception) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException exception) {
+        LOGGER.error("Grade ingestion batch of {} could not be recorded", batch.size(),
+            exception);
+        batch.forEach(submission -> tickets.put(submission.ticket(), Status.FAILED));
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  private void write(List<Submission> batch) {
+    Map<StudentModuleKey, Submission> latest = new LinkedHashMap<>();
+    for (Submission submission : batch) {
+      Submission replaced = latest.put(new StudentModuleKey(submission.upload().studentId(),
+          submission.upload().moduleCode()), submission);
+      if (replaced != null) {
+        tickets.put(replaced.ticket(), Status.SUPERSEDED);
+      }
+    }
+
+    List<Submission> writes = new ArrayList<>(latest.values());
+    try {
+      record(writes);
+    } catch (RuntimeException exception) {
+      // A grade created concurrently through addGrade fails the whole batch, so each submission
+      // is retried alone and only the clashing ones fail
+      LOGGER.warn("Grade ingestion batch of {} failed, retrying one at a time", writes.size(),
+          exception);
+      for (Submission submission : writes) {
+        try {
+          record(List.of(submission));
+        } catch (RuntimeException retryException) {
+          LOGGER.warn("Grade ingestion ticket {} failed", submission.ticket(), retryException);
+          tickets.put(submission.ticket(), Status.FAILED);
+        }
+      }
+    }
+  }
+
+  private void record(List<Submission> writes) {
+    List<GradeUploadResult> results = gradeService.addGrades(
+        writes.stream().map(Submission::upload).toList()).rows();
+    for (int i = 0; i < writes.size(); i++) {
+      tickets.put(writes.get(i).ticket(), switch (results.get(i).status()) {
+        case CREATED -> Status.CREATED;
+        case UPDATED -> Status.UPDATED;
+        case NOT_FOUND -> Status.NOT_FOUND;
+        case NOT_REGISTERED -> Status.NOT_REGISTERED;
+        case INVALID -> Status.FAILED;
+      });
+    }
+  }
+}
@@ -0,0 +1,311 @@
+package uk.ac.ucl.comp0010.service;
+
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import uk.ac.ucl.comp0010.dto.GradeScore;
+import uk.ac.ucl.comp0010.dto.GradeUpload;
+import uk.ac.ucl.comp0010.dto.GradeUploadReport;
+import uk.ac.ucl.comp0010.dto.GradeUploadResult;
+import uk.ac.ucl.comp0010.dto.GradeUploadResult.Status;
+import uk.ac.ucl.comp0010.dto.ModuleStatistics;
+import uk.ac.ucl.comp0010.dto.RecordedGrade;
+import uk.ac.ucl.comp0010.dto.StudentModuleKey;
+import uk.ac.ucl.comp0010.exceptions.NoRegistrationException;
+import uk.ac.ucl.comp0010.model.Grade;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.ModuleStats;
+import uk.ac.ucl.comp0010.model.Registration;
+import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.repository.GradeRepository;
+import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.repository.RegistrationRepository;
+import uk.ac.ucl.comp0010.repository.StudentRepository;
+
+/**
+ * Service class for every operation that changes a student's grades.
+ * Each operation runs in a single transaction, so the running totals stored on the student and
+ * the materialised statistics of the module are written together with the grades they summarise.
+ * The students are read under a row lock before anything else, and the module statistics under
+ * a row lock after them, so concurrent operations on the same student or module apply their
+ * changes one after the other instead of overwriting each other's. Several rows of the same
+ * kind are always locked in key order, so overlapping operations cannot deadlock.
+ */
+@Service
+public class GradeService {
+  private final StudentRepository studentRepository;
+  private final ModuleRepository moduleRepository;
+  private final GradeRepository gradeRepository;
+  private final RegistrationRepository registrationRepository;
+  private final ModuleStatsLoader moduleStatsLoader;
+  private final EntityManager entityManager;
+
+  /**
+   * Constructs a new GradeService with the specified repositories.
+   *
+   * @param studentRepository the repository for accessing student data
+   * @param moduleRepository the repository for accessing module data
+   * @param gradeRepository the repository for accessing grade data
+   * @param registrationRepository the repository for accessing registration data
+   * @param moduleStatsLoader the loader for the materialised statistics of each module
+   * @param entityManager the entity manager, used to generate the IDs of upserted grades
+   */
+  public GradeService(StudentRepository studentRepository, ModuleRepository moduleRepository,
+      GradeRepository gradeRepository, RegistrationRepository registrationRepository,
+      ModuleStatsLoader moduleStatsLoader, EntityManager entityManager) {
+    this.studentRepository = studentRepository;
+    this.moduleRepository = moduleRepository;
+    this.gradeRepository = gradeRepository;
+    this.registrationRepository = registrationRepository;
+    this.moduleStatsLoader = moduleStatsLoader;
+    this.entityManager = entityManager;
+  }
+
+  /**
+   * Records a grade for a student in a module, replacing any grade they already have for it.
+   * The student is locked without loading their registrations or grades, so their registration
+   * cannot be removed once it has been checked with a single existence query, and the module is
+   * only referenced. The grade is then written with one upsert statement, after its ID and
+   * previous score have been read under a row lock so the running totals and module statistics
+   * can be adjusted, and is returned from those values without being read back.
+   *
+   * @param studentId the ID of the student
+   * @param moduleCode the code of the module
+   * @param score the grade score
+   * @return the stored grade, and whether it was created or replaced an existing one
+   * @throws NoSuchElementException if the student or the module does not exist
+   * @throws NoRegistrationException if the student is not registered for the module
+   */
+  @Transactional
+  public RecordedGrade addGrade(long studentId, String moduleCode, int score)
+      throws NoRegistrationException {
+    Student student = studentRepository.findForUpdateById(studentId)
+        .orElseThrow(() -> new NoSuchElementException("No student with Id " + studentId));
+    if (!registrationRepository.existsByStudentIdAndModuleCode(studentId, moduleCode)) {
+      if (!moduleRepository.existsById(moduleCode)) {
+        throw new NoSuchElementException("No module with code " + moduleCode);
+      }
+      throw new NoRegistrationException("Student with Id " + studentId
+          + " is not registered for module with code " + moduleCode);
+    }
+    Module module = moduleRepository.getReferenceById(moduleCode);
+    ModuleStats stats = moduleStatsLoader.statsFor(moduleCode);
+
+    GradeScore previous = gradeRepository.findScoreForUpdate(studentId, moduleCode).orElse(null);
+    Integer previousScore = previous == null ? null : previous.score();
+    long id = previous == null ? nextGradeId() : previous.id();
+    gradeRepository.upsert(id, studentId, moduleCode, score);
+    student.recordScore(previousScore, score);
+
+    boolean staleRange = previousScore != null && stats.removeScore(previousScore);
+    stats.addScore(score);
+    if (staleRange) {
+      ModuleStatistics current = gradeRepository.findStatisticsByModuleCode(moduleCode);
+      stats.setScoreRange(current.minimum(), current.maximum());
+    }
+    Grade grade = new Grade(module, score);
+    grade.setId(id);
+    grade.setStudent(student);
+    return new RecordedGrade(grade, previous == null);
+  }
+
+  /**
+   * Records a batch of grades in a single transaction.
+   * The students, modules, registrations and existing grades referenced by the batch are loaded
+   * up front with a handful of IN queries, each binding at most a thousand student IDs and a
+   * thousand module codes, so each row is validated against in-memory sets. The
+   * students and the statistics of the modules are locked in key order. New
+   * grades are inserted and existing grades are updated in place, leaving Hibernate to send them
+   * to the database in JDBC batches when the transaction is flushed.
+   * A row is rejected rather than failing the batch if it is incomplete, refers to a student or
+   * module that does not exist, or the student is not registered for the module. If the same
+   * student and module appear in several rows, the last row wins.
+   *
+   * @param uploads the rows of the batch, in upload order
+   * @return a report with the outcome of every row
+   */
+  @Transactional
+  public GradeUploadReport addGrades(List<GradeUpload> uploads) {
+    Set<Long> studentIds = new TreeSet<>();
+    Set<String> moduleCodes = new HashSet<>();
+    for (GradeUpload upload : uploads) {
+      if (isComplete(upload)) {
+        studentIds.add(upload.studentId());
+        moduleCodes.add(upload.moduleCode());
+      }
+    }
+
+    Map<String, Module> modules = new TreeMap<>();
+    for (List<String> codes : Batches.chunks(moduleCodes)) {
+      moduleRepository.findAllById(codes).forEach(
+          module -> modules.put(module.getCode(), module));
+    }
+    List<List<String>> codeChunks = Batches.chunks(modules.keySet());
+    Map<Long, Student> students = new HashMap<>();
+    Set<StudentModuleKey> registered = new HashSet<>();
+    Map<StudentModuleKey, Grade> grades = new HashMap<>();
+    for (List<Long> ids : Batches.chunks(studentIds)) {
+      studentRepository.findAllForUpdateById(ids).forEach(
+          student -> students.put(student.getId(), student));
+      for (List<String> codes : codeChunks) {
+        registered.addAll(registrationRepository.findKeysByStudentIdsAndModuleCodes(ids, codes));
+        for (Grade grade : gradeRepository.findByStudentIdsAndModuleCodes(ids, codes)) {
+          grades.put(new StudentModuleKey(grade.getStudent().getId(),
+              grade.getModule().getCode()), grade);
+        }
+      }
+    }
+    Map<String, ModuleStats> stats = new HashMap<>();
+    for (String moduleCode : modules.keySet()) {
+      stats.put(moduleCode, moduleStatsLoader.statsFor(moduleCode));
+    }
+
+    Set<String> staleRanges = new HashSet<>();
+    List<GradeUploadResult> results = new ArrayList<>(uploads.size());
+    for (GradeUpload upload : uploads) {
+      Status status;
+      StudentModuleKey key = isComplete(upload)
+          ? new StudentModuleKey(upload.studentId(), upload.moduleCode()) : null;
+      if (key == null) {
+        status = Status.INVALID;
+      } else if (!students.containsKey(key.studentId())
+          || !modules.containsKey(key.moduleCode())) {
+        status = Status.NOT_FOUND;
+      } else if (!registered.contains(key)) {
+        status = Status.NOT_REGISTERED;
+      } else {
+        Student student = students.get(key.studentId());
+        ModuleStats moduleStats = stats.get(key.moduleCode());
+        Grade existing = grades.get(key);
+        if (existing == null) {
+          Grade grade = new Grade(modules.get(key.moduleCode()), upload.score());
+          student.addGrade(grade);
+          gradeRepository.save(grade);
+          grades.put(key, grade);
+          status = Status.CREATED;
+        } else {
+          if (moduleStats.removeScore(existing.getScore())) {
+            staleRanges.add(key.moduleCode());
+          }
+          student.updateGrade(existing, upload.score());
+          status = Status.UPDATED;
+        }
+        moduleStats.addScore(upload.score());
+      }
+      results.add(new GradeUploadResult(results.size() + 1, upload.studentId(),
+          upload.moduleCode(), status));
+    }
+
+    // The queries flush the batch first, so each range is taken from the grades now stored
+    for (String moduleCode : staleRanges) {
+      ModuleStatistics current = gradeRepository.findStatisticsByModuleCode(moduleCode);
+      stats.get(moduleCode).setScoreRange(current.minimum(), current.maximum());
+    }
+    return GradeUploadReport.of(results);
+  }
+
+  /**
+   * Deletes a grade, taking its score off the owning student's running totals.
+   *
+   * @param id the unique identifier of the grade
+   * @throws NoSuchElementException if the grade does not exist
+   */
+  @Transactional
+  public void deleteGrade(long id) {
+    // The student is locked before the grade is loaded, as loading the grade loads its student
+    Student student = studentRepository.findForUpdateById(
+        gradeRepository.findStudentIdById(id).orElseThrow()).orElseThrow();
+    Grade grade = gradeRepository.findById(id).orElseThrow();
+    removeGrade(student, grade, moduleStatsLoader.statsFor(grade.getModule().getCode()));
+  }
+
+  /**
+   * Deletes a student's registration for a module together with any grade they had for it.
+   *
+   * @param studentId the ID of the student
+   * @param moduleCode the code of the module
+   * @throws NoSuchElementException if the student, the module or the registration does not exist
+   */
+  @Transactional
+  public void deleteRegistration(long studentId, String moduleCode) {
+    Student student = studentRepository.findForUpdateById(studentId).orElseThrow();
+    Module module = moduleRepository.findById(moduleCode).orElseThrow();
+    Registration registration =
+        registrationRepository.findByModuleAndStudent(module, student).orElseThrow();
+    ModuleStats stats = moduleStatsLoader.statsFor(moduleCode);
+
+    student.removeRegistration(registration);
+    registrationRepository.delete(registration);
+    stats.touch();
+    gradeRepository.findByModuleAndStudent(module, student)
+        .ifPresent(grade -> removeGrade(student, grade, stats));
+  }
+
+  /**
+   * Deletes a student together with their registrations and grades, taking each grade off the
+   * statistics of its module and recording the lost registration against every module.
+   *
+   * @param studentId the ID of the student
+   * @throws NoSuchElementException if the student does not exist
+   */
+  @Transactional
+  public void deleteStudent(long studentId) {
+    Student student = studentRepository.findForUpdateById(studentId).orElseThrow();
+    Set<String> moduleCodes = new TreeSet<>();
+    for (Registration registration : student.getStudentRegistration()) {
+      moduleCodes.add(registration.getModule().getCode());
+    }
+    for (Grade grade : student.getGradeList()) {
+      moduleCodes.add(grade.getModule().getCode());
+    }
+    Map<String, ModuleStats> stats = new HashMap<>();
+    for (String moduleCode : moduleCodes) {
+      stats.put(moduleCode, moduleStatsLoader.statsFor(moduleCode));
+    }
+
+    for (Registration registration : student.getStudentRegistration()) {
+      stats.get(registration.getModule().getCode()).touch();
+    }
+    for (Grade grade : List.copyOf(student.getGradeList())) {
+      removeGrade(student, grade, stats.get(grade.getModule().getCode()));
+    }
+    studentRepository.delete(student);
+  }
+
+  private void removeGrade(Student student, Grade grade, ModuleStats stats) {
+    student.removeGrade(grade);
+    gradeRepository.delete(grade);
+    if (stats.removeScore(grade.getScore())) {
+      // The query flushes the deletion first, so the range is taken from the remaining grades
+      ModuleStatistics remaining = gradeRepository.findStatisticsByModuleCode(
+          stats.getModuleCode());
+      stats.setScoreRange(remaining.minimum(), remaining.maximum());
+    }
+  }
+
+  private long nextGradeId() {
+    // The ID comes from Hibernate's pooled generator, so it never collides with the IDs it
+    // hands out to grades inserted through the persistence context
+    SharedSessionContractImplementor session =
+        entityManager.unwrap(SharedSessionContractImplementor.class);
+    BeforeExecutionGenerator generator = (BeforeExecutionGenerator) session.getFactory()
+        .getMappingMetamodel().getEntityDescriptor(Grade.class).getGenerator();
+    return (Long) generator.generate(session, null, null, EventType.INSERT);
+  }
+
+  private static boolean isComplete(GradeUpload upload) {
+    return upload.studentId() != null && upload.moduleCode() != null && upload.score() != null;
+  }
+}
@@ -0,0 +1,102 @@
+package uk.ac.ucl.comp0010.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import uk.ac.ucl.comp0010.dto.GradeTotalsDrift;
+import uk.ac.ucl.comp0010.dto.ModuleStatistics;
+import uk.ac.ucl.comp0010.model.ModuleStats;
+import uk.ac.ucl.comp0010.repository.GradeRepository;
+import uk.ac.ucl.comp0010.repository.ModuleStatsRepository;
+import uk.ac.ucl.comp0010.repository.StudentRepository;
+
+/**
+ * Scheduled job that checks the grade totals stored on each student, and the materialised
+ * statistics of each module, against the Grade table.
+ * Anything that has drifted, for example because a grade was written without going through
+ * {@link GradeService}, is reported and repaired.
+ */
+@Component
+public class GradeTotalsReconciler {
+  private static final Logger LOGGER = LoggerFactory.getLogger(GradeTotalsReconciler.class);
+
+  private final StudentRepository studentRepository;
+  private final GradeRepository gradeRepository;
+  private final ModuleStatsRepository moduleStatsRepository;
+
+  /**
+   * Constructs a new GradeTotalsReconciler with the specified repositories.
+   *
+   * @param studentRepository the repository for accessing student data
+   * @param gradeRepository the repository for accessing grade data
+   * @param moduleStatsRepository the repository for accessing module statistics
+   */
+  public GradeTotalsReconciler(StudentRepository studentRepository,
+      GradeRepository gradeRepository, ModuleStatsRepository moduleStatsRepository) {
+    this.studentRepository = studentRepository;
+    this.gradeRepository = gradeRepository;
+    this.moduleStatsRepository = moduleStatsRepository;
+  }
+
+  /**
+   * Recomputes the grade totals of every student and overwrites the ones that have drifted.
+   * Each drifted student is locked before being repaired, and left for the next run if a grade
+   * was recorded for them since the totals were recomputed.
+   * Runs on the schedule given by the {@code grades.reconciliation.cron} property, which
+   * defaults to 3am every day.
+   *
+   * @return the students whose totals had drifted, before they were repaired
+   */
+  @Scheduled(cron = "${grades.reconciliation.cron:0 0 3 * * *}")
+  @Transactional
+  public List<GradeTotalsDrift> reconcile() {
+    List<GradeTotalsDrift> drifts = studentRepository.findGradeTotalsDrift();
+    for (GradeTotalsDrift drift : drifts) {
+      LOGGER.warn("Grade totals of student {} drifted: stored {} over {} grades, actual {} over {}",
+          drift.studentId(), drift.storedTotal(), drift.storedCount(), drift.actualTotal(),
+          drift.actualCount());
+      studentRepository.findForUpdateById(drift.studentId())
+          .filter(student -> student.getGradeTotal() == drift.storedTotal()
+              && student.getGradeCount() == drift.storedCount())
+          .ifPresent(student ->
+              student.setGradeTotals(drift.actualTotal(), (int) drift.actualCount()));
+    }
+    LOGGER.info("Grade totals reconciled, {} students had drifted", drifts.size());
+    return drifts;
+  }
+
+  /**
+   * Recomputes the statistics of every module that has materialised statistics and overwrites
+   * the ones that have drifted. Each module's statistics are locked before they are recomputed,
+   * so a grade recorded at the same time is not lost.
+   * Runs on the same schedule as {@link #reconcile()}.
+   *
+   * @return the codes of the modules whose statistics had drifted
+   */
+  @Scheduled(cron = "${grades.reconciliation.cron:0 0 3 * * *}")
+  @Transactional
+  public List<String> reconcileModuleStats() {
+    List<String> drifted = new ArrayList<>();
+    for (String moduleCode : moduleStatsRepository.findModuleCodes()) {
+      Optional<ModuleStats> stored = moduleStatsRepository.findForUpdateByModuleCode(moduleCode);
+      if (stored.isEmpty()) {
+        continue;
+      }
+      ModuleStats stats = stored.get();
+      ModuleStatistics actual = gradeRepository.findStatisticsByModuleCode(stats.getModuleCode());
+      if (!actual.equals(stats.toStatistics())) {
+        LOGGER.warn("Statistics of module {} drifted: stored {}, actual {}",
+            stats.getModuleCode(), stats.toStatistics(), actual);
+        stats.overwrite(actual);
+        drifted.add(stats.getModuleCode());
+      }
+    }
+    LOGGER.info("Module statistics reconciled, {} modules had drifted", drifted.size());
+    return drifted;
+  }
+}
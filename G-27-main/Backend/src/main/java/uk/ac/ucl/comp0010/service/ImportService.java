@@ -0,0 +1,300 @@
+package uk.ac.ucl.comp0010.service;
+
+import jakarta.persistence.EntityManager;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.ac.ucl.comp0010.dto.ImportReject;
+import uk.ac.ucl.comp0010.dto.ImportReject.Reason;
+import uk.ac.ucl.comp0010.dto.ImportReport;
+import uk.ac.ucl.comp0010.dto.StudentSummary;
+import uk.ac.ucl.comp0010.model.ImportCheckpoint;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.repository.ImportCheckpointRepository;
+import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.repository.StudentRepository;
+
+/**
+ * Service class for loading students and modules in bulk from CSV.
+ * The keys that must stay unique are preloaded into hash sets with one streamed query, so every
+ * row is checked in memory, including against the rows before it in the file. The file is then
+ * read a line at a time, and the rows that pass are written in batches of import.batch-size, each
+ * in its own transaction, so memory holds one batch however long the file is. A named import
+ * keeps a checkpoint that is advanced in the same transaction as each batch, and sending the
+ * same file again under the same name skips the rows already committed.
+ */
+@Service
+public class ImportService {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ImportService.class);
+
+  /**
+   * The longest value a text column is mapped with, beyond which a row would fail its batch.
+   */
+  private static final int MAX_FIELD_LENGTH = 255;
+  private static final String STUDENTS = "students";
+  private static final String MODULES = "modules";
+
+  private final StudentRepository studentRepository;
+  private final ModuleRepository moduleRepository;
+  private final ImportCheckpointRepository checkpointRepository;
+  private final EntityManager entityManager;
+  private final TransactionTemplate transactionTemplate;
+  private final TransactionTemplate readOnlyTransactionTemplate;
+  private final int batchSize;
+  private final int maxReportedRejects;
+
+  /**
+   * Checks the fields of a data row against the keys taken so far, and adds its entity to the
+   * batch if it passes.
+   */
+  @FunctionalInterface
+  private interface RowReader {
+    Reason read(String[] fields, List<Object> batch);
+  }
+
+  /**
+   * Constructs a new ImportService with the specified repositories.
+   *
+   * @param studentRepository the repository for reading the taken student keys
+   * @param moduleRepository the repository for reading the taken module codes
+   * @param checkpointRepository the repository for the checkpoints of named imports
+   * @param entityManager the entity manager, used to insert each batch without merging it
+   * @param transactionManager the transaction manager each batch is committed with
+   * @param batchSize the number of rows written in each transaction
+   * @param maxReportedRejects the number of rejected rows listed individually in a report
+   */
+  public ImportService(StudentRepository studentRepository, ModuleRepository moduleRepository,
+      ImportCheckpointRepository checkpointRepository, EntityManager entityManager,
+      PlatformTransactionManager transactionManager,
+      @Value("${import.batch-size}") int batchSize,
+      @Value("${import.max-reported-rejects}") int maxReportedRejects) {
+    this.studentRepository = studentRepository;
+    this.moduleRepository = moduleRepository;
+    this.checkpointRepository = checkpointRepository;
+    this.entityManager = entityManager;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+    this.readOnlyTransactionTemplate.setReadOnly(true);
+    this.batchSize = batchSize;
+    this.maxReportedRejects = maxReportedRejects;
+  }
+
+  /**
+   * Loads students from CSV with one id,first_name,last_name,username,email row per line.
+   * A header line starting with id and blank lines are skipped. A row is rejected if a field is
+   * missing or cannot be parsed, or if its ID, username or email is already taken.
+   *
+   * @param csv the CSV document, which is read but not closed
+   * @param checkpoint the name to keep the import's progress under, or null to keep none
+   * @return the report of the import
+   * @throws IOException if the document cannot be read
+   * @throws IllegalStateException if the checkpoint belongs to an import of modules
+   */
+  public ImportReport importStudents(Reader csv, String checkpoint) throws IOException {
+    Set<Long> ids = new HashSet<>();
+    Set<String> usernames = new HashSet<>();
+    Set<String> emails = new HashSet<>();
+    readOnlyTransactionTemplate.executeWithoutResult(status -> {
+      try (Stream<StudentSummary> students = studentRepository.streamSummaries()) {
+        students.forEach(student -> {
+          ids.add(student.id());
+          usernames.add(student.username());
+          emails.add(student.email());
+        });
+      }
+    });
+
+    return run(csv, checkpoint, STUDENTS, "id", (fields, batch) -> {
+      if (fields.length != 5) {
+        return Reason.INVALID;
+      }
+      Long id = parseLong(fields[0]);
+      String firstName = text(fields[1]);
+      String lastName = text(fields[2]);
+      String username = text(fields[3]);
+      String email = text(fields[4]);
+      if (id == null || firstName == null || lastName == null || username == null
+          || email == null) {
+        return Reason.INVALID;
+      }
+      if (ids.contains(id)) {
+        return Reason.DUPLICATE_KEY;
+      }
+      if (usernames.contains(username)) {
+        return Reason.DUPLICATE_USERNAME;
+      }
+      if (emails.contains(email)) {
+        return Reason.DUPLICATE_EMAIL;
+      }
+      ids.add(id);
+      usernames.add(username);
+      emails.add(email);
+      batch.add(new Student(id, firstName, lastName, username, email));
+      return null;
+    });
+  }
+
+  /**
+   * Loads modules from CSV with one code,name,mnc row per line, where mnc is true or false.
+   * A header line starting with code and blank lines are skipped. A row is rejected if a field is
+   * missing or cannot be parsed, or if its code is already taken.
+   *
+   * @param csv the CSV document, which is read but not closed
+   * @param checkpoint the name to keep the import's progress under, or null to keep none
+   * @return the report of the import
+   * @throws IOException if the document cannot be read
+   * @throws IllegalStateException if the checkpoint belongs to an import of students
+   */
+  public ImportReport importModules(Reader csv, String checkpoint) throws IOException {
+    Set<String> codes = new HashSet<>();
+    readOnlyTransactionTemplate.executeWithoutResult(status -> {
+      try (Stream<String> stored = moduleRepository.streamCodes()) {
+        stored.forEach(codes::add);
+      }
+    });
+
+    return run(csv, checkpoint, MODULES, "code", (fields, batch) -> {
+      if (fields.length != 3) {
+        return Reason.INVALID;
+      }
+      String code = text(fields[0]);
+      String name = text(fields[1]);
+      Boolean mnc = parseBoolean(fields[2]);
+      if (code == null || name == null || mnc == null) {
+        return Reason.INVALID;
+      }
+      if (!codes.add(code)) {
+        return Reason.DUPLICATE_KEY;
+      }
+      batch.add(new Module(code, name, mnc));
+      return null;
+    });
+  }
+
+  private ImportReport run(Reader csv, String checkpoint, String kind, String header,
+      RowReader rowReader) throws IOException {
+    long started = System.nanoTime();
+    long resumeAfter = checkpoint == null ? 0 : openCheckpoint(checkpoint, kind);
+    List<Object> batch = new ArrayList<>(batchSize);
+    Map<Reason, Long> rejectsByReason = new EnumMap<>(Reason.class);
+    List<ImportReject> rejects = new ArrayList<>();
+    long row = 0;
+    long committed = resumeAfter;
+    long imported = 0;
+    long rejected = 0;
+    long batches = 0;
+
+    BufferedReader reader = new BufferedReader(csv);
+    String line;
+    while ((line = reader.readLine()) != null) {
+      if (line.isBlank()) {
+        continue;
+      }
+      String[] fields = line.split(",", -1);
+      if (row == 0 && fields[0].strip().equals(header)) {
+        continue;
+      }
+      row++;
+      if (row <= resumeAfter) {
+        continue;
+      }
+      Reason reason = rowReader.read(fields, batch);
+      if (reason != null) {
+        rejected++;
+        rejectsByReason.merge(reason, 1L, Long::sum);
+        if (rejects.size() < maxReportedRejects) {
+          rejects.add(new ImportReject(row, text(fields[0]), reason));
+        }
+      }
+      if (batch.size() == batchSize) {
+        imported += batch.size();
+        batches++;
+        commit(batch, checkpoint, row);
+        committed = row;
+      }
+    }
+    if (!batch.isEmpty()) {
+      imported += batch.size();
+      batches++;
+    }
+    // The last batch also moves the checkpoint past any rejected rows at the end of the file
+    if (!batch.isEmpty() || (checkpoint != null && row > committed)) {
+      commit(batch, checkpoint, row);
+    }
+
+    long skipped = Math.min(row, resumeAfter);
+    long elapsedNanos = System.nanoTime() - started;
+    double rowsPerSecond = elapsedNanos == 0 ? 0 : (imported + rejected) / (elapsedNanos / 1e9);
+    LOGGER.info("Imported {} {} in {} batches and {} ms ({} rows/s), {} rejected, {} skipped",
+        imported, kind, batches, elapsedNanos / 1_000_000, Math.round(rowsPerSecond), rejected,
+        skipped);
+    return new ImportReport(imported, rejected, skipped, Math.max(row, resumeAfter), batches,
+        elapsedNanos / 1_000_000, rowsPerSecond, rejectsByReason, rejects);
+  }
+
+  private long openCheckpoint(String name, String kind) {
+    ImportCheckpoint checkpoint = transactionTemplate.execute(status ->
+        checkpointRepository.findById(name).orElseGet(() -> {
+          ImportCheckpoint created = new ImportCheckpoint(name, kind);
+          entityManager.persist(created);
+          return created;
+        }));
+    if (!checkpoint.getKind().equals(kind)) {
+      throw new IllegalStateException("Checkpoint " + name + " belongs to an import of "
+          + checkpoint.getKind());
+    }
+    return checkpoint.getRowsCommitted();
+  }
+
+  private void commit(List<Object> batch, String checkpoint, long row) {
+    transactionTemplate.executeWithoutResult(status -> {
+      // Imported rows are kept out of the second-level cache, where they would evict the rows
+      // in use. The session is only used by the import, so the cache mode is left as it is.
+      entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+      batch.forEach(entityManager::persist);
+      if (checkpoint != null) {
+        checkpointRepository.advance(checkpoint, row);
+      }
+      entityManager.flush();
+      entityManager.clear();
+    });
+    batch.clear();
+  }
+
+  private static String text(String field) {
+    String value = field.strip();
+    return value.isEmpty() || value.length() > MAX_FIELD_LENGTH ? null : value;
+  }
+
+  private static Long parseLong(String field) {
+    try {
+      return Long.valueOf(field.strip());
+    } catch (NumberFormatException exception) {
+      return null;
+    }
+  }
+
+  private static Boolean parseBoolean(String field) {
+    String value = field.strip();
+    if (value.equalsIgnoreCase("true")) {
+      return true;
+    }
+    return value.equalsIgnoreCase("false") ? false : null;
+  }
+}
@@ -0,0 +1,75 @@
+package uk.ac.ucl.comp0010.service;
+
+import java.util.NoSuchElementException;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import uk.ac.ucl.comp0010.config.CacheConfiguration;
+import uk.ac.ucl.comp0010.dto.StudentSummary;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.repository.StudentRepository;
+
+/**
+ * Service class for cached lookups of modules and student personal details.
+ * Modules are returned detached, so callers may read them or use them as the target of a new
+ * association, but must not change them.
+ */
+@Service
+public class LookupService {
+  private final ModuleRepository moduleRepository;
+  private final StudentRepository studentRepository;
+
+  /**
+   * Constructs a new LookupService with the specified repositories.
+   *
+   * @param moduleRepository the repository for accessing module data
+   * @param studentRepository the repository for accessing student data
+   */
+  public LookupService(ModuleRepository moduleRepository, StudentRepository studentRepository) {
+    this.moduleRepository = moduleRepository;
+    this.studentRepository = studentRepository;
+  }
+
+  /**
+   * Returns a module by its code, reading the database only on a cache miss.
+   *
+   * @param code the code of the module
+   * @return the module
+   * @throws NoSuchElementException if there is no module with the code
+   */
+  @Cacheable(CacheConfiguration.MODULES)
+  public Module getModule(String code) {
+    return moduleRepository.findById(code).orElseThrow();
+  }
+
+  /**
+   * Returns the personal details of a student, reading the database only on a cache miss.
+   *
+   * @param id the ID of the student
+   * @return the personal details of the student
+   * @throws NoSuchElementException if there is no student with the ID
+   */
+  @Cacheable(CacheConfiguration.STUDENT_SUMMARIES)
+  public StudentSummary getStudentSummary(long id) {
+    return studentRepository.findSummaryById(id).orElseThrow();
+  }
+
+  /**
+   * Removes a module from the cache, so the next lookup reads it again.
+   *
+   * @param code the code of the module
+   */
+  @CacheEvict(CacheConfiguration.MODULES)
+  public void evictModule(String code) {
+  }
+
+  /**
+   * Removes the personal details of a student from the cache, so the next lookup reads them again.
+   *
+   * @param id the ID of the student
+   */
+  @CacheEvict(CacheConfiguration.STUDENT_SUMMARIES)
+  public void evictStudentSummary(long id) {
+  }
+}
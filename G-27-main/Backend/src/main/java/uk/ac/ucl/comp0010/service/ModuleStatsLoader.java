@@ -0,0 +1,52 @@
+package uk.ac.ucl.comp0010.service;
+
+import java.util.Optional;
+import org.springframework.stereotype.Component;
+import uk.ac.ucl.comp0010.model.ModuleStats;
+import uk.ac.ucl.comp0010.repository.GradeRepository;
+import uk.ac.ucl.comp0010.repository.ModuleStatsRepository;
+
+/**
+ * Loads the materialised statistics of a module for the services that change its grades or
+ * registrations.
+ */
+@Component
+public class ModuleStatsLoader {
+  private final ModuleStatsRepository moduleStatsRepository;
+  private final GradeRepository gradeRepository;
+
+  /**
+   * Constructs a new ModuleStatsLoader with the specified repositories.
+   *
+   * @param moduleStatsRepository the repository for accessing module statistics
+   * @param gradeRepository the repository for accessing grade data
+   */
+  public ModuleStatsLoader(ModuleStatsRepository moduleStatsRepository,
+      GradeRepository gradeRepository) {
+    this.moduleStatsRepository = moduleStatsRepository;
+    this.gradeRepository = gradeRepository;
+  }
+
+  /**
+   * Returns the materialised statistics of a module, locked until the transaction ends, creating
+   * them from the grades already recorded if the module has none yet.
+   * This must be called before the operation changes any grades, so that a newly created row
+   * does not already include the change. When two transactions find the row missing at once,
+   * only one of them inserts it and the other waits on its lock for the filled-in statistics.
+   *
+   * @param moduleCode the code of the module
+   * @return the statistics of the module
+   */
+  public ModuleStats statsFor(String moduleCode) {
+    Optional<ModuleStats> stored = moduleStatsRepository.findForUpdateByModuleCode(moduleCode);
+    if (stored.isPresent()) {
+      return stored.get();
+    }
+    boolean inserted = moduleStatsRepository.insertIfAbsent(moduleCode) == 1;
+    ModuleStats stats = moduleStatsRepository.findForUpdateByModuleCode(moduleCode).orElseThrow();
+    if (inserted) {
+      stats.overwrite(gradeRepository.findStatisticsByModuleCode(moduleCode));
+    }
+    return stats;
+  }
+}
\ No newline at end of file
@@ -0,0 +1,149 @@
+package uk.ac.ucl.comp0010.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import uk.ac.ucl.comp0010.dto.RegistrationReport;
+import uk.ac.ucl.comp0010.dto.RegistrationRequest;
+import uk.ac.ucl.comp0010.dto.RegistrationResult;
+import uk.ac.ucl.comp0010.dto.RegistrationResult.Status;
+import uk.ac.ucl.comp0010.dto.StudentModuleKey;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Registration;
+import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.repository.RegistrationRepository;
+import uk.ac.ucl.comp0010.repository.StudentRepository;
+
+/**
+ * Service class for registering students for modules, one at a time or in bulk.
+ * Each registration is also recorded against the materialised statistics of its module, so the
+ * module's revision moves on with its list of students.
+ */
+@Service
+public class RegistrationService {
+  private final StudentRepository studentRepository;
+  private final ModuleRepository moduleRepository;
+  private final RegistrationRepository registrationRepository;
+  private final ModuleStatsLoader moduleStatsLoader;
+
+  /**
+   * Constructs a new RegistrationService with the specified repositories.
+   *
+   * @param studentRepository the repository for accessing student data
+   * @param moduleRepository the repository for accessing module data
+   * @param registrationRepository the repository for accessing registration data
+   * @param moduleStatsLoader the loader for the materialised statistics of each module
+   */
+  public RegistrationService(StudentRepository studentRepository,
+      ModuleRepository moduleRepository, RegistrationRepository registrationRepository,
+      ModuleStatsLoader moduleStatsLoader) {
+    this.studentRepository = studentRepository;
+    this.moduleRepository = moduleRepository;
+    this.registrationRepository = registrationRepository;
+    this.moduleStatsLoader = moduleStatsLoader;
+  }
+
+  /**
+   * Registers a student for a module.
+   * The student is locked before their registrations are checked, so their revision moves on
+   * once for every registration made concurrently; a registration made concurrently by another
+   * request is caught by the unique constraint on the student and module.
+   *
+   * @param studentId the ID of the student to register
+   * @param module the module to register them for
+   * @return the saved registration, or empty if the student is already registered for the module
+   * @throws NoSuchElementException if the student does not exist
+   */
+  @Transactional
+  public Optional<Registration> register(long studentId, Module module) {
+    Student student = studentRepository.findForUpdateById(studentId).orElseThrow();
+    if (student.isRegisteredFor(module.getCode())) {
+      return Optional.empty();
+    }
+    moduleStatsLoader.statsFor(module.getCode()).touch();
+    return Optional.of(registrationRepository.save(student.registerModule(module)));
+  }
+
+  /**
+   * Registers many students for many modules in a single transaction.
+   * The students and modules are loaded with IN queries, and the registrations that already
+   * exist between them are found with one IN query per thousand students and thousand modules,
+   * so each row is checked against an in-memory set. The students are locked in ID order, and
+   * the new registrations are inserted directly rather than by saving each student's aggregate.
+   * A row is rejected rather than failing the request if it is incomplete, refers to a student
+   * or module that does not exist, or repeats an existing registration. A registration made
+   * concurrently by another request is caught by the unique constraint on the student and
+   * module, which rolls back the whole transaction.
+   *
+   * @param requests the rows of the request, in order
+   * @return a report with the outcome of every row
+   */
+  @Transactional
+  public RegistrationReport registerAll(List<RegistrationRequest> requests) {
+    Set<Long> studentIds = new TreeSet<>();
+    Set<String> moduleCodes = new HashSet<>();
+    for (RegistrationRequest request : requests) {
+      if (isComplete(request)) {
+        studentIds.add(request.studentId());
+        moduleCodes.add(request.moduleCode());
+      }
+    }
+
+    Map<String, Module> modules = new TreeMap<>();
+    for (List<String> codes : Batches.chunks(moduleCodes)) {
+      moduleRepository.findAllById(codes).forEach(
+          module -> modules.put(module.getCode(), module));
+    }
+    List<List<String>> codeChunks = Batches.chunks(modules.keySet());
+    Map<Long, Student> students = new HashMap<>();
+    Set<StudentModuleKey> registered = new HashSet<>();
+    for (List<Long> ids : Batches.chunks(studentIds)) {
+      studentRepository.findAllForUpdateById(ids).forEach(
+          student -> students.put(student.getId(), student));
+      for (List<String> codes : codeChunks) {
+        registered.addAll(registrationRepository.findKeysByStudentIdsAndModuleCodes(ids, codes));
+      }
+    }
+
+    Set<String> registeredModules = new TreeSet<>();
+    List<RegistrationResult> results = new ArrayList<>(requests.size());
+    for (RegistrationRequest request : requests) {
+      Status status;
+      if (!isComplete(request)) {
+        status = Status.INVALID;
+      } else if (!students.containsKey(request.studentId())
+          || !modules.containsKey(request.moduleCode())) {
+        status = Status.NOT_FOUND;
+      } else if (!registered.add(
+          new StudentModuleKey(request.studentId(), request.moduleCode()))) {
+        status = Status.ALREADY_REGISTERED;
+      } else {
+        Student student = students.get(request.studentId());
+        registrationRepository.save(student.registerModule(modules.get(request.moduleCode())));
+        registeredModules.add(request.moduleCode());
+        status = Status.REGISTERED;
+      }
+      results.add(new RegistrationResult(results.size() + 1, request.studentId(),
+          request.moduleCode(), status));
+    }
+    // The statistics are locked in module code order, so overlapping requests cannot deadlock
+    for (String moduleCode : registeredModules) {
+      moduleStatsLoader.statsFor(moduleCode).touch();
+    }
+    return RegistrationReport.of(results);
+  }
+
+  private static boolean isComplete(RegistrationRequest request) {
+    return request.studentId() != null && request.moduleCode() != null;
+  }
+}
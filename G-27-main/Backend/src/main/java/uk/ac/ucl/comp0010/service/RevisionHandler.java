@@ -0,0 +1,133 @@
+package uk.ac.ucl.comp0010.service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import org.springframework.data.rest.core.annotation.HandleAfterCreate;
+import org.springframework.data.rest.core.annotation.HandleAfterDelete;
+import org.springframework.data.rest.core.annotation.HandleAfterSave;
+import org.springframework.data.rest.core.annotation.HandleBeforeCreate;
+import org.springframework.data.rest.core.annotation.HandleBeforeSave;
+import org.springframework.data.rest.core.annotation.RepositoryEventHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import uk.ac.ucl.comp0010.model.Grade;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Registration;
+import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.repository.RegistrationRepository;
+import uk.ac.ucl.comp0010.repository.StudentRepository;
+
+/**
+ * Moves on the revisions of students and modules when they are written through the Spring Data
+ * REST endpoints, which replace the stored entity with the request body and would otherwise
+ * leave the revisions used for ETags unchanged or reset. A write to a student, registration or
+ * grade moves on the revision of every module whose details show it, as the ETag of a module's
+ * details is its revision alone.
+ */
+@Component
+@RepositoryEventHandler
+public class RevisionHandler {
+  private final StudentRepository studentRepository;
+  private final RegistrationRepository registrationRepository;
+  private final ModuleStatsLoader moduleStatsLoader;
+  private final ThreadLocal<List<String>> previousModuleCodes = new ThreadLocal<>();
+
+  /**
+   * Constructs a new RevisionHandler.
+   *
+   * @param studentRepository the repository for accessing student data
+   * @param registrationRepository the repository for accessing registration data
+   * @param moduleStatsLoader the loader for the materialised statistics of each module
+   */
+  public RevisionHandler(StudentRepository studentRepository,
+      RegistrationRepository registrationRepository, ModuleStatsLoader moduleStatsLoader) {
+    this.studentRepository = studentRepository;
+    this.registrationRepository = registrationRepository;
+    this.moduleStatsLoader = moduleStatsLoader;
+  }
+
+  /**
+   * Carries the revision of a stored student forward to the student about to replace it, and
+   * notes the modules they are registered for, as the write may drop their registrations.
+   *
+   * @param student the student about to be written
+   */
+  @HandleBeforeCreate
+  @HandleBeforeSave
+  public void reviseStudent(Student student) {
+    studentRepository.findRevisionById(student.getId())
+        .ifPresent(revision -> student.setRevision(revision + 1));
+    previousModuleCodes.set(registrationRepository.findModuleCodesByStudentId(student.getId()));
+  }
+
+  /**
+   * Moves on the revision of a student once it has been overwritten, and of every module they
+   * were or are now registered for, as their personal details appear in the details of those
+   * modules. The revision carried forward before the write was read without a lock, so a grade
+   * recorded meanwhile may have reached the same revision; moving it on in the database
+   * afterwards leaves the stored student on a revision that no earlier state of it has had.
+   *
+   * @param student the student that was written
+   */
+  @HandleAfterCreate
+  @HandleAfterSave
+  @Transactional
+  public void revisedStudent(Student student) {
+    studentRepository.incrementRevisionById(student.getId());
+    Set<String> moduleCodes =
+        new TreeSet<>(registrationRepository.findModuleCodesByStudentId(student.getId()));
+    List<String> previous = previousModuleCodes.get();
+    previousModuleCodes.remove();
+    if (previous != null) {
+      moduleCodes.addAll(previous);
+    }
+    for (String moduleCode : moduleCodes) {
+      moduleStatsLoader.statsFor(moduleCode).touch();
+    }
+  }
+
+  /**
+   * Moves on the revisions of the student and the module of a registration once it has been
+   * written or deleted, as it appears in the details of both.
+   *
+   * @param registration the registration that was written or deleted
+   */
+  @HandleAfterCreate
+  @HandleAfterSave
+  @HandleAfterDelete
+  @Transactional
+  public void revisedRegistration(Registration registration) {
+    studentRepository.incrementRevisionById(registration.getStudent().getId());
+    moduleStatsLoader.statsFor(registration.getModule().getCode()).touch();
+  }
+
+  /**
+   * Moves on the revisions of the student and the module of a grade once it has been written or
+   * deleted, as it appears in the details of both.
+   *
+   * @param grade the grade that was written or deleted
+   */
+  @HandleAfterCreate
+  @HandleAfterSave
+  @HandleAfterDelete
+  @Transactional
+  public void revisedGrade(Grade grade) {
+    studentRepository.incrementRevisionById(grade.getStudent().getId());
+    moduleStatsLoader.statsFor(grade.getModule().getCode()).touch();
+  }
+
+  /**
+   * Moves on the revision of a module about to be written, and of every student registered for
+   * it, as the module appears in all of their details.
+   *
+   * @param module the module about to be written
+   */
+  @HandleBeforeCreate
+  @HandleBeforeSave
+  @Transactional
+  public void reviseModule(Module module) {
+    moduleStatsLoader.statsFor(module.getCode()).touch();
+    studentRepository.incrementRevisionsByModuleCode(module.getCode());
+  }
+}
@@ -0,0 +1,54 @@
+package uk.ac.ucl.comp0010.service;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import uk.ac.ucl.comp0010.dto.GradeSummary;
+import uk.ac.ucl.comp0010.dto.StudentDetails;
+import uk.ac.ucl.comp0010.dto.StudentSummary;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.repository.GradeRepository;
+import uk.ac.ucl.comp0010.repository.RegistrationRepository;
+
+/**
+ * Service class for reading students together with their registrations and grades.
+ */
+@Service
+public class StudentService {
+  private final LookupService lookupService;
+  private final RegistrationRepository registrationRepository;
+  private final GradeRepository gradeRepository;
+
+  /**
+   * Constructs a new StudentService with the specified repositories.
+   *
+   * @param lookupService the service that caches the students' personal details
+   * @param registrationRepository the repository for accessing registration data
+   * @param gradeRepository the repository for accessing grade data
+   */
+  public StudentService(LookupService lookupService,
+      RegistrationRepository registrationRepository, GradeRepository gradeRepository) {
+    this.lookupService = lookupService;
+    this.registrationRepository = registrationRepository;
+    this.gradeRepository = gradeRepository;
+  }
+
+  /**
+   * Loads a student with their registered modules and grades.
+   * The personal details come from the student summary cache, and the registered modules and the
+   * grades with their modules are each read with one query, so the details cost two statements
+   * when the student is cached and three when they are not.
+   *
+   * @param id the ID of the student
+   * @return the details of the student
+   * @throws NoSuchElementException if there is no student with the ID
+   */
+  @Transactional(readOnly = true)
+  public StudentDetails getStudentDetails(long id) {
+    StudentSummary student = lookupService.getStudentSummary(id);
+    List<Module> registeredModules = registrationRepository.findModulesByStudentId(id);
+    List<GradeSummary> grades = gradeRepository.findSummariesByStudentId(id);
+    return new StudentDetails(student, registeredModules, grades);
+  }
+}
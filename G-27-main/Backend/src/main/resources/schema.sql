@@ -1,7 +1,11 @@
+DROP TABLE IF EXISTS import_checkpoint CASCADE;
+DROP TABLE IF EXISTS module_stats CASCADE;
 DROP TABLE IF EXISTS grade CASCADE;
 DROP TABLE IF EXISTS registration CASCADE;
 DROP TABLE IF EXISTS student CASCADE;
 DROP TABLE IF EXISTS module CASCADE;
+DROP SEQUENCE IF EXISTS grade_seq;
+DROP SEQUENCE IF EXISTS registration_seq;
 
 
 CREATE TABLE student(
@@ -9,7 +13,10 @@ CREATE TABLE student(
                         firstName VARCHAR(30),
                         lastName VARCHAR(30),
                         username VARCHAR(30),
-                        email VARCHAR(50)
+                        email VARCHAR(50),
+                        grade_total BIGINT NOT NULL DEFAULT 0,
+                        grade_count INT NOT NULL DEFAULT 0,
+                        revision BIGINT NOT NULL DEFAULT 0
 );
 
 CREATE TABLE module(
@@ -18,24 +25,58 @@ CREATE TABLE module(
                        mnc BOOLEAN
 );
 
+CREATE SEQUENCE grade_seq START WITH 1 INCREMENT BY 50;
+
 CREATE TABLE grade(
-                      id SERIAL PRIMARY KEY,
+                      id BIGINT PRIMARY KEY,
                       score INT,
                       student_id INT,
                       module_code VARCHAR(10),
                       FOREIGN KEY (student_id)
                           REFERENCES student (id),
                       FOREIGN KEY (module_code)
-                          REFERENCES module (code)
+                          REFERENCES module (code),
+                      CONSTRAINT uk_grade_student_module
+                          UNIQUE (student_id, module_code)
 );
 
+CREATE INDEX idx_grade_module_code ON grade (module_code);
+
+
+CREATE SEQUENCE registration_seq START WITH 1 INCREMENT BY 50;
 
 CREATE TABLE registration(
-                             id SERIAL PRIMARY KEY,
+                             id BIGINT PRIMARY KEY,
                              student_id INT,
                              module_code VARCHAR(10),
                              FOREIGN KEY (student_id)
                                  REFERENCES student (id),
                              FOREIGN KEY (module_code)
-                                 REFERENCES module (code)
+                                 REFERENCES module (code),
+                             CONSTRAINT uk_registration_student_module
+                                 UNIQUE (student_id, module_code)
+);
+
+CREATE INDEX idx_registration_module_code ON registration (module_code);
+
+
+CREATE TABLE module_stats(
+                             module_code VARCHAR(10) PRIMARY KEY,
+                             grade_count BIGINT NOT NULL DEFAULT 0,
+                             grade_total BIGINT NOT NULL DEFAULT 0,
+                             minimum_score INT,
+                             maximum_score INT,
+                             band_0_40 BIGINT NOT NULL DEFAULT 0,
+                             band_40_50 BIGINT NOT NULL DEFAULT 0,
+                             band_50_60 BIGINT NOT NULL DEFAULT 0,
+                             band_60_70 BIGINT NOT NULL DEFAULT 0,
+                             band_70_100 BIGINT NOT NULL DEFAULT 0,
+                             revision BIGINT NOT NULL DEFAULT 0
+);
+
+
+CREATE TABLE import_checkpoint(
+                                  name VARCHAR(100) PRIMARY KEY,
+                                  kind VARCHAR(20) NOT NULL,
+                                  rows_committed BIGINT NOT NULL DEFAULT 0
 );
\ No newline at end of file
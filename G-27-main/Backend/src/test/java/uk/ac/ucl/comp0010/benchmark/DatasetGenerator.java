@@ -0,0 +1,133 @@
+package uk.ac.ucl.comp0010.benchmark;
+
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.ac.ucl.comp0010.model.Grade;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Student;
+
+/**
+ * Fills the database with a synthetic university through the entities, so the rows are written
+ * exactly as the application writes them.
+ * Student {@code i} is registered for, and graded in, modules {@code i}, {@code i + stride},
+ * {@code i + 2 * stride} and so on, modulo the number of modules, so callers can work out a
+ * student's modules without reading them back. The scores come from a seeded random number
+ * generator, so the same sizes always produce the same dataset.
+ */
+class DatasetGenerator {
+  private static final int STUDENTS_PER_TRANSACTION = 1000;
+
+  private final TransactionTemplate transactionTemplate;
+  private final EntityManager entityManager;
+  private final int students;
+  private final int modules;
+  private final int modulesPerStudent;
+  private final int stride;
+
+  /**
+   * Creates a generator for a dataset of the given size.
+   *
+   * @param transactionTemplate the template each chunk of students is written in
+   * @param entityManager the shared entity manager the entities are persisted through
+   * @param students the number of students
+   * @param modules the number of modules
+   * @param modulesPerStudent the number of modules each student is registered for and graded in
+   */
+  DatasetGenerator(TransactionTemplate transactionTemplate, EntityManager entityManager,
+      int students, int modules, int modulesPerStudent) {
+    if (modulesPerStudent > modules) {
+      throw new IllegalArgumentException("Students cannot take more modules than there are");
+    }
+    this.transactionTemplate = transactionTemplate;
+    this.entityManager = entityManager;
+    this.students = students;
+    this.modules = modules;
+    this.modulesPerStudent = modulesPerStudent;
+    this.stride = Math.max(1, modules / modulesPerStudent);
+  }
+
+  /**
+   * Writes the modules, then the students with their registrations and grades, a thousand
+   * students per transaction.
+   *
+   * @param seed the seed of the scores
+   */
+  void generate(long seed) {
+    List<Module> allModules = new ArrayList<>(modules);
+    for (int m = 0; m < modules; m++) {
+      allModules.add(new Module(moduleCode(m), "Module " + m, m % 10 == 0));
+    }
+    transactionTemplate.executeWithoutResult(status -> allModules.forEach(entityManager::persist));
+
+    SplittableRandom random = new SplittableRandom(seed);
+    for (int first = 1; first <= students; first += STUDENTS_PER_TRANSACTION) {
+      int from = first;
+      int to = Math.min(students, first + STUDENTS_PER_TRANSACTION - 1);
+      transactionTemplate.executeWithoutResult(status -> {
+        for (long id = from; id <= to; id++) {
+          Student student = new Student(id, "First" + id, "Last" + id, "user" + id,
+              "user" + id + "@ucl.ac.uk");
+          for (int k = 0; k < modulesPerStudent; k++) {
+            Module module = entityManager.getReference(Module.class, moduleCode(id, k));
+            student.registerModule(module);
+            student.addGrade(new Grade(module, random.nextInt(101)));
+          }
+          entityManager.persist(student);
+        }
+        entityManager.flush();
+        entityManager.clear();
+      });
+    }
+  }
+
+  /**
+   * Returns the number of students in the dataset, whose IDs run from 1 upwards.
+   *
+   * @return the number of students
+   */
+  int students() {
+    return students;
+  }
+
+  /**
+   * Returns the number of modules in the dataset.
+   *
+   * @return the number of modules
+   */
+  int modules() {
+    return modules;
+  }
+
+  /**
+   * Returns the number of modules each student is registered for.
+   *
+   * @return the number of modules per student
+   */
+  int modulesPerStudent() {
+    return modulesPerStudent;
+  }
+
+  /**
+   * Returns the code of a module.
+   *
+   * @param index the index of the module, from 0
+   * @return the module code
+   */
+  static String moduleCode(int index) {
+    return String.format("GEN%05d", index);
+  }
+
+  /**
+   * Returns the code of one of the modules a student is registered for.
+   *
+   * @param studentId the ID of the student
+   * @param k which of the student's modules, from 0
+   * @return the module code
+   */
+  String moduleCode(long studentId, int k) {
+    return moduleCode((int) ((studentId + (long) k * stride) % modules));
+  }
+}
@@ -0,0 +1,93 @@
+package uk.ac.ucl.comp0010.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.io.Reader;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import uk.ac.ucl.comp0010.dto.ImportReport;
+import uk.ac.ucl.comp0010.service.ImportService;
+
+/**
+ * Measures how quickly the bulk import loads students from CSV.
+ * It is excluded from the normal test run and is run with {@code mvn test -Pbenchmark}. The
+ * number of students can be changed with {@code -Dbenchmark.import.rows=...}. The CSV is
+ * generated a line at a time as the import reads it, so the file is never held in memory.
+ */
+@Tag("benchmark")
+@SpringBootTest
+public class ImportThroughputBenchmark {
+  private static final int ROWS = Integer.getInteger("benchmark.import.rows", 100_000);
+  private static final int ROUNDS = 3;
+
+  @Autowired
+  private ImportService importService;
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  /**
+   * Deletes everything the benchmark created, bypassing Hibernate.
+   */
+  @AfterEach
+  void tearDown() {
+    for (String table : List.of("Student", "Import_Checkpoint")) {
+      jdbcTemplate.update("DELETE FROM " + table);
+    }
+    entityManagerFactory.getCache().evictAll();
+  }
+
+  /**
+   * Imports a fresh set of students once per round and prints the rows loaded per second. The
+   * first round warms up the JIT and the connection pool.
+   *
+   * @throws Exception if the generated CSV cannot be read - should never be thrown
+   */
+  @Test
+  void benchmarkStudentImport() throws Exception {
+    for (int round = 0; round <= ROUNDS; round++) {
+      long firstId = (long) round * ROWS + 1;
+      ImportReport report = importService.importStudents(csv(firstId), "benchmark-" + round);
+      assertEquals(ROWS, report.imported());
+      if (round > 0) {
+        System.out.printf("round %d: %d students in %d ms (%.0f rows/s, %d batches)%n", round,
+            report.imported(), report.elapsedMillis(), report.rowsPerSecond(), report.batches());
+      }
+    }
+  }
+
+  private static Reader csv(long firstId) {
+    return new Reader() {
+      private long next = firstId;
+      private String line = "id,first_name,last_name,username,email\n";
+      private int position;
+
+      @Override
+      public int read(char[] buffer, int offset, int length) {
+        if (position == line.length()) {
+          if (next == firstId + ROWS) {
+            return -1;
+          }
+          line = next + ",First" + next + ",Last" + next + ",user" + next + ",user" + next
+              + "@ucl.ac.uk\n";
+          position = 0;
+          next++;
+        }
+        int count = Math.min(length, line.length() - position);
+        line.getChars(position, position + count, buffer, offset);
+        position += count;
+        return count;
+      }
+
+      @Override
+      public void close() {}
+    };
+  }
+}
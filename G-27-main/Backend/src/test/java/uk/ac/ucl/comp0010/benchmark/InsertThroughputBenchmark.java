@@ -0,0 +1,120 @@
+package uk.ac.ucl.comp0010.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import uk.ac.ucl.comp0010.dto.GradeUpload;
+import uk.ac.ucl.comp0010.dto.GradeUploadReport;
+import uk.ac.ucl.comp0010.dto.RegistrationReport;
+import uk.ac.ucl.comp0010.dto.RegistrationRequest;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.repository.StudentRepository;
+import uk.ac.ucl.comp0010.service.GradeService;
+import uk.ac.ucl.comp0010.service.RegistrationService;
+
+/**
+ * Measures how quickly the bulk write paths insert registrations and grades.
+ * It is excluded from the normal test run and is run with {@code mvn test -Pbenchmark}. The
+ * number of students can be changed with {@code -Dbenchmark.rows=...}. Besides the throughput,
+ * it prints the number of JDBC statements Hibernate prepared, which drops to roughly one per
+ * batch once inserts are batched.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class InsertThroughputBenchmark {
+  private static final int ROWS = Integer.getInteger("benchmark.rows", 5000);
+  private static final int ROUNDS = 3;
+
+  @Autowired
+  private GradeService gradeService;
+  @Autowired
+  private RegistrationService registrationService;
+  @Autowired
+  private StudentRepository studentRepository;
+  @Autowired
+  private ModuleRepository moduleRepository;
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  private Statistics statistics;
+
+  /**
+   * Creates the students that every round registers and grades.
+   */
+  @BeforeEach
+  void setup() {
+    List<Student> students = new ArrayList<>(ROWS);
+    for (int i = 1; i <= ROWS; i++) {
+      students.add(new Student(i, "First" + i, "Last" + i, "user" + i, "user" + i + "@ucl.ac.uk"));
+    }
+    studentRepository.saveAll(students);
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+  }
+
+  /**
+   * Deletes everything the benchmark created, bypassing Hibernate, and then empties the
+   * second-level cache so it does not hold the deleted rows.
+   */
+  @AfterEach
+  void tearDown() {
+    for (String table : List.of("Grade", "Registration", "Student", "Module", "Module_Stats")) {
+      jdbcTemplate.update("DELETE FROM " + table);
+    }
+    entityManagerFactory.getCache().evictAll();
+  }
+
+  /**
+   * Registers every student for a new module and then grades them, once per round, and prints
+   * the rows inserted per second and the statements prepared by each step. The first round warms
+   * up the JIT and the connection pool.
+   */
+  @Test
+  void benchmarkBulkInserts() {
+    for (int round = 0; round <= ROUNDS; round++) {
+      String code = "BNCH" + round;
+      moduleRepository.save(new Module(code, "Benchmark " + round, false));
+      List<RegistrationRequest> registrations = new ArrayList<>(ROWS);
+      List<GradeUpload> grades = new ArrayList<>(ROWS);
+      for (long id = 1; id <= ROWS; id++) {
+        registrations.add(new RegistrationRequest(id, code));
+        grades.add(new GradeUpload(id, code, (int) (id % 101)));
+      }
+
+      statistics.clear();
+      long start = System.nanoTime();
+      RegistrationReport registered = registrationService.registerAll(registrations);
+      long registrationNanos = System.nanoTime() - start;
+      long registrationStatements = statistics.getPrepareStatementCount();
+
+      statistics.clear();
+      start = System.nanoTime();
+      GradeUploadReport graded = gradeService.addGrades(grades);
+      long gradeNanos = System.nanoTime() - start;
+      long gradeStatements = statistics.getPrepareStatementCount();
+
+      assertEquals(ROWS, registered.registered());
+      assertEquals(ROWS, graded.created());
+      if (round > 0) {
+        System.out.printf("round %d: registrations %.0f rows/s (%d statements), "
+            + "grades %.0f rows/s (%d statements)%n", round,
+            ROWS / (registrationNanos / 1e9), registrationStatements,
+            ROWS / (gradeNanos / 1e9), gradeStatements);
+      }
+    }
+  }
+}
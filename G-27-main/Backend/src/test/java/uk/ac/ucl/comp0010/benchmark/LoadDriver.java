@@ -0,0 +1,231 @@
+package uk.ac.ucl.comp0010.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Replays a mix of requests against a running server from several threads and reports the
+ * latency percentiles and throughput of each endpoint.
+ * The mix is weighted towards reads, as the frontend polls the detail pages far more often than
+ * grades or registrations are written. Every request picks a random student, and the grade and
+ * registration requests pick one of that student's modules, so they exercise the normal update
+ * and conflict paths rather than failing validation.
+ */
+class LoadDriver {
+  /**
+   * The endpoints the driver calls, with the share of the requests each one receives.
+   */
+  enum Endpoint {
+    STUDENT_DETAILS(50),
+    MODULE_DETAILS(20),
+    ADD_GRADE(25),
+    REGISTER_STUDENT(5);
+
+    private final int weight;
+
+    Endpoint(int weight) {
+      this.weight = weight;
+    }
+  }
+
+  /**
+   * The measurements of one endpoint.
+   *
+   * @param endpoint the endpoint
+   * @param requests the number of requests sent to it
+   * @param errors the number of requests answered with a 5xx status or not answered at all
+   * @param p50Millis the median latency in milliseconds
+   * @param p99Millis the 99th percentile latency in milliseconds
+   * @param throughput the requests per second the endpoint served over the whole run
+   */
+  record Result(Endpoint endpoint, int requests, int errors, double p50Millis, double p99Millis,
+      double throughput) {}
+
+  private final HttpClient client = HttpClient.newHttpClient();
+  private final URI baseUri;
+  private final DatasetGenerator dataset;
+
+  /**
+   * Creates a driver for a server holding the given dataset.
+   *
+   * @param baseUri the address of the server
+   * @param dataset the dataset the server was filled with
+   */
+  LoadDriver(URI baseUri, DatasetGenerator dataset) {
+    this.baseUri = baseUri;
+    this.dataset = dataset;
+  }
+
+  /**
+   * Sends the requests, split evenly between the threads, and waits for all of them.
+   *
+   * @param requests the total number of requests
+   * @param threads the number of threads sending requests
+   * @param seed the seed of the request mix
+   * @return the measurements of every endpoint
+   * @throws Exception if a thread fails or the run is interrupted
+   */
+  List<Result> run(int requests, int threads, long seed) throws Exception {
+    return run(requests, threads, seed, EnumSet.allOf(Endpoint.class));
+  }
+
+  /**
+   * Sends requests to some of the endpoints only, in the same proportions to each other as in the
+   * full mix.
+   *
+   * @param requests the total number of requests
+   * @param threads the number of threads sending requests
+   * @param seed the seed of the request mix
+   * @param endpoints the endpoints to call
+   * @return the measurements of every endpoint, with no requests for the endpoints left out
+   * @throws Exception if a thread fails or the run is interrupted
+   */
+  List<Result> run(int requests, int threads, long seed, Set<Endpoint> endpoints)
+      throws Exception {
+    List<Endpoint> mix = List.copyOf(endpoints);
+    int totalWeight = mix.stream().mapToInt(endpoint -> endpoint.weight).sum();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<Future<Recorder>> futures = new ArrayList<>();
+    long start = System.nanoTime();
+    for (int t = 0; t < threads; t++) {
+      int share = requests / threads + (t < requests % threads ? 1 : 0);
+      SplittableRandom random = new SplittableRandom(seed + t);
+      futures.add(executor.submit(() -> drive(share, random, mix, totalWeight)));
+    }
+    Recorder total = new Recorder(requests);
+    for (Future<Recorder> future : futures) {
+      total.add(future.get());
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+    executor.shutdown();
+    return total.results(seconds);
+  }
+
+  private Recorder drive(int requests, SplittableRandom random, List<Endpoint> mix,
+      int totalWeight) {
+    Recorder recorder = new Recorder(requests);
+    for (int i = 0; i < requests; i++) {
+      Endpoint endpoint = pick(random, mix, totalWeight);
+      HttpRequest request = request(endpoint, random);
+      long start = System.nanoTime();
+      int status;
+      try {
+        status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+      } catch (IOException exception) {
+        status = -1;
+      } catch (InterruptedException exception) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+      recorder.record(endpoint, System.nanoTime() - start, status < 0 || status >= 500);
+    }
+    return recorder;
+  }
+
+  private static Endpoint pick(SplittableRandom random, List<Endpoint> mix, int totalWeight) {
+    int roll = random.nextInt(totalWeight);
+    for (Endpoint endpoint : mix) {
+      roll -= endpoint.weight;
+      if (roll < 0) {
+        return endpoint;
+      }
+    }
+    throw new IllegalStateException("The roll must fall within the total weight");
+  }
+
+  private HttpRequest request(Endpoint endpoint, SplittableRandom random) {
+    long studentId = 1 + random.nextInt(dataset.students());
+    String moduleCode = dataset.moduleCode(studentId, random.nextInt(dataset.modulesPerStudent()));
+    return switch (endpoint) {
+      case STUDENT_DETAILS -> get("/students/studentDetail/" + studentId);
+      case MODULE_DETAILS -> get("/modules/moduleDetails/"
+          + DatasetGenerator.moduleCode(random.nextInt(dataset.modules())));
+      case ADD_GRADE -> post("/grades/addGrade", "{\"student_id\":\"" + studentId
+          + "\",\"module_code\":\"" + moduleCode + "\",\"score\":\"" + random.nextInt(101)
+          + "\"}");
+      case REGISTER_STUDENT -> post("/students/studentDetail/register", "{\"student_id\":\""
+          + studentId + "\",\"module_code\":\"" + moduleCode + "\"}");
+    };
+  }
+
+  private HttpRequest get(String path) {
+    return HttpRequest.newBuilder(baseUri.resolve(path)).GET().build();
+  }
+
+  private HttpRequest post(String path, String json) {
+    return HttpRequest.newBuilder(baseUri.resolve(path))
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(json))
+        .build();
+  }
+
+  /**
+   * Collects the latencies of one thread, so the threads do not contend while recording.
+   */
+  private static final class Recorder {
+    private final Map<Endpoint, long[]> latencies = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Integer> counts = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Integer> errors = new EnumMap<>(Endpoint.class);
+
+    Recorder(int capacity) {
+      for (Endpoint endpoint : Endpoint.values()) {
+        latencies.put(endpoint, new long[capacity]);
+        counts.put(endpoint, 0);
+        errors.put(endpoint, 0);
+      }
+    }
+
+    void record(Endpoint endpoint, long nanos, boolean error) {
+      int count = counts.get(endpoint);
+      latencies.get(endpoint)[count] = nanos;
+      counts.put(endpoint, count + 1);
+      if (error) {
+        errors.merge(endpoint, 1, Integer::sum);
+      }
+    }
+
+    void add(Recorder other) {
+      for (Endpoint endpoint : Endpoint.values()) {
+        long[] theirs = other.latencies.get(endpoint);
+        for (int i = 0; i < other.counts.get(endpoint); i++) {
+          record(endpoint, theirs[i], false);
+        }
+        errors.merge(endpoint, other.errors.get(endpoint), Integer::sum);
+      }
+    }
+
+    List<Result> results(double seconds) {
+      List<Result> results = new ArrayList<>();
+      for (Endpoint endpoint : Endpoint.values()) {
+        int count = counts.get(endpoint);
+        long[] sorted = Arrays.copyOf(latencies.get(endpoint), count);
+        Arrays.sort(sorted);
+        results.add(new Result(endpoint, count, errors.get(endpoint),
+            percentile(sorted, 0.50), percentile(sorted, 0.99), count / seconds));
+      }
+      return results;
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+      if (sorted.length == 0) {
+        return 0;
+      }
+      int rank = (int) Math.ceil(fraction * sorted.length) - 1;
+      return sorted[Math.max(0, rank)] / 1e6;
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package uk.ac.ucl.comp0010.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.net.URI;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Fills the database with a synthetic university and then loads the running server with a mix
+ * of detail page views, grade writes and registrations, printing the p50 and p99 latency and the
+ * throughput of each endpoint.
+ * It is excluded from the normal test run and is run with {@code mvn test -Pbenchmark}. The size
+ * of the dataset and of the run can be changed with {@code -Dload.students=...},
+ * {@code -Dload.modules=...}, {@code -Dload.modulesPerStudent=...},
+ * {@code -Dload.requests=...} and {@code -Dload.threads=...}; production scale is roughly
+ * 200000 students taking 10 modules each, which is 2 million registrations and grades.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+public class LoadTestBenchmark {
+  private static final int STUDENTS = Integer.getInteger("load.students", 2000);
+  private static final int MODULES = Integer.getInteger("load.modules", 200);
+  private static final int MODULES_PER_STUDENT = Integer.getInteger("load.modulesPerStudent", 10);
+  private static final int REQUESTS = Integer.getInteger("load.requests", 5000);
+  private static final int THREADS = Integer.getInteger("load.threads", 8);
+  private static final int CLIENTS = Integer.getInteger("load.clients", 200);
+  private static final long SEED = 27;
+
+  @LocalServerPort
+  private int port;
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+  @Autowired
+  private EntityManager entityManager;
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+  @Value("${spring.threads.virtual.enabled}")
+  private boolean virtualThreads;
+
+  /**
+   * Deletes everything the benchmark created, bypassing Hibernate, and then empties the
+   * second-level cache so it does not hold the deleted rows.
+   */
+  @AfterEach
+  void tearDown() {
+    for (String table : List.of("Grade", "Registration", "Student", "Module", "Module_Stats")) {
+      jdbcTemplate.update("DELETE FROM " + table);
+    }
+    entityManagerFactory.getCache().evictAll();
+  }
+
+  /**
+   * Generates the dataset, warms the server up with a tenth of the requests, and then measures
+   * the full run.
+   *
+   * @throws Exception if a request thread fails
+   */
+  @Test
+  void benchmarkEndpointMix() throws Exception {
+    DatasetGenerator dataset = new DatasetGenerator(transactionTemplate, entityManager,
+        STUDENTS, MODULES, MODULES_PER_STUDENT);
+    long start = System.nanoTime();
+    dataset.generate(SEED);
+    System.out.printf("generated %d students, %d modules and %d grades in %.1f s%n", STUDENTS,
+        MODULES, (long) STUDENTS * MODULES_PER_STUDENT, (System.nanoTime() - start) / 1e9);
+
+    LoadDriver driver = new LoadDriver(URI.create("http://localhost:" + port), dataset);
+    driver.run(REQUESTS / 10, THREADS, SEED);
+    List<LoadDriver.Result> results = driver.run(REQUESTS, THREADS, SEED + THREADS);
+
+    report(results);
+  }
+
+  /**
+   * Loads the module detail page alone from many more clients than there are pooled connections,
+   * to compare platform and virtual request threads. Run it once with
+   * {@code -Dspring.threads.virtual.enabled=false} and once with {@code =true}; the number of
+   * clients is set with {@code -Dload.clients=...}.
+   *
+   * @throws Exception if a request thread fails
+   */
+  @Test
+  void benchmarkModuleDetailsConcurrency() throws Exception {
+    DatasetGenerator dataset = new DatasetGenerator(transactionTemplate, entityManager,
+        STUDENTS, MODULES, MODULES_PER_STUDENT);
+    dataset.generate(SEED);
+    System.out.printf("module details from %d clients on %s threads%n", CLIENTS,
+        virtualThreads ? "virtual" : "platform");
+
+    LoadDriver driver = new LoadDriver(URI.create("http://localhost:" + port), dataset);
+    Set<LoadDriver.Endpoint> endpoints = EnumSet.of(LoadDriver.Endpoint.MODULE_DETAILS);
+    driver.run(REQUESTS / 10, CLIENTS, SEED, endpoints);
+    report(driver.run(REQUESTS, CLIENTS, SEED + CLIENTS, endpoints));
+  }
+
+  private static void report(List<LoadDriver.Result> results) {
+    System.out.printf("%-17s %8s %7s %9s %9s %10s%n", "endpoint", "requests", "errors",
+        "p50 (ms)", "p99 (ms)", "req/s");
+    for (LoadDriver.Result result : results) {
+      if (result.requests() > 0) {
+        System.out.printf("%-17s %8d %7d %9.2f %9.2f %10.1f%n", result.endpoint(),
+            result.requests(), result.errors(), result.p50Millis(), result.p99Millis(),
+            result.throughput());
+      }
+    }
+    for (LoadDriver.Result result : results) {
+      assertEquals(0, result.errors(), "server errors from " + result.endpoint());
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package uk.ac.ucl.comp0010.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import uk.ac.ucl.comp0010.repository.StudentRepository;
+
+/**
+ * The set of tests for the connection pool settings, checking that the pool is sized from the configuration and
+ * that its usage is published as metrics.
+ */
+@SpringBootTest
+public class DataSourceMetricsTest {
+  private static final String POOL = "GradesPool";
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Autowired
+  private StudentRepository testStudentRepository;
+
+  @Value("${db.pool-size}")
+  private int poolSize;
+
+  /**
+   * Tests that the pool has the configured size and that its active, idle and pending connections and the time
+   * taken to acquire a connection are published
+   */
+  @Test
+  void testPoolMetricsArePublished() {
+    assertEquals(poolSize, gauge("hikaricp.connections.max"));
+    assertTrue(gauge("hikaricp.connections.active") >= 0);
+    assertTrue(gauge("hikaricp.connections.idle") >= 0);
+    assertEquals(0, gauge("hikaricp.connections.pending"));
+
+    Timer acquire = meterRegistry.get("hikaricp.connections.acquire").tag("pool", POOL).timer();
+    long acquired = acquire.count();
+    testStudentRepository.count();
+    assertTrue(acquire.count() > acquired);
+  }
+
+  private double gauge(String name) {
+    return meterRegistry.get(name).tag("pool", POOL).gauge().value();
+  }
+}
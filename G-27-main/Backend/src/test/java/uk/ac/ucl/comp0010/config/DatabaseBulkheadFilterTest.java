@@ -0,0 +1,89 @@
+package uk.ac.ucl.comp0010.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * The set of unit tests for the DatabaseBulkheadFilter class, which limits the number of requests
+ * served at once to the size of the connection pool.
+ */
+public class DatabaseBulkheadFilterTest {
+  private final DatabaseBulkheadFilter filter = new DatabaseBulkheadFilter(1, Duration.ZERO);
+
+  /**
+   * Tests that a request arriving while every permit is held is turned away with a 503, and that the
+   * permit is released once the first request has been served
+   */
+  @Test
+  void testRejectsWhenSaturated() throws Exception {
+    MockHttpServletResponse inner = new MockHttpServletResponse();
+    MockHttpServletResponse outer = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("GET", "/modules"), outer,
+        (request, response) -> filter.doFilter(new MockHttpServletRequest("GET", "/modules"),
+            inner, new MockFilterChain()));
+    assertEquals(HttpStatus.OK.value(), outer.getStatus());
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), inner.getStatus());
+    assertNotNull(inner.getHeader("Error-Message"));
+
+    MockHttpServletResponse after = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("GET", "/modules"), after, new MockFilterChain());
+    assertEquals(HttpStatus.OK.value(), after.getStatus());
+  }
+
+  /**
+   * Tests that a request that goes on asynchronously keeps its permit after the request thread returns, so a
+   * request arriving meanwhile is turned away, and that the permit is released once the response is complete
+   */
+  @Test
+  void testHoldsPermitUntilAsyncComplete() throws Exception {
+    MockHttpServletRequest export = new MockHttpServletRequest("GET", "/grades/export");
+    export.setAsyncSupported(true);
+    filter.doFilter(export, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+
+    MockHttpServletResponse during = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("GET", "/modules"), during, new MockFilterChain());
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), during.getStatus());
+
+    export.getAsyncContext().complete();
+    MockHttpServletResponse after = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("GET", "/modules"), after, new MockFilterChain());
+    assertEquals(HttpStatus.OK.value(), after.getStatus());
+  }
+
+  /**
+   * Tests that the actuator endpoints are served even while every permit is held
+   */
+  @Test
+  void testActuatorIsNotLimited() throws Exception {
+    MockHttpServletResponse inner = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("GET", "/modules"), new MockHttpServletResponse(),
+        (request, response) -> filter.doFilter(
+            new MockHttpServletRequest("GET", "/actuator/health"), inner, new MockFilterChain()));
+    assertEquals(HttpStatus.OK.value(), inner.getStatus());
+    assertNull(inner.getHeader("Error-Message"));
+  }
+
+  /**
+   * Tests that grade submissions and their tickets are served even while every permit is held, as they never use a
+   * connection
+   */
+  @Test
+  void testIngestQueueIsNotLimited() throws Exception {
+    for (String path : new String[] {"/grades/submit", "/grades/submissions/1"}) {
+      MockHttpServletResponse inner = new MockHttpServletResponse();
+      filter.doFilter(new MockHttpServletRequest("GET", "/modules"), new MockHttpServletResponse(),
+          (request, response) -> filter.doFilter(new MockHttpServletRequest("POST", path), inner,
+              new MockFilterChain()));
+      assertEquals(HttpStatus.OK.value(), inner.getStatus());
+      assertNull(inner.getHeader("Error-Message"));
+    }
+  }
+}
@@ -0,0 +1,139 @@
+package uk.ac.ucl.comp0010.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import uk.ac.ucl.comp0010.model.Grade;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.repository.GradeRepository;
+import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.repository.ModuleStatsRepository;
+import uk.ac.ucl.comp0010.repository.RegistrationRepository;
+import uk.ac.ucl.comp0010.repository.StudentRepository;
+
+/**
+ * The set of tests for the request metrics, checking that the SQL statements of each request, the work done by the
+ * module detail page and the repository invocations are recorded and can be scraped in the Prometheus format.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+public class RequestMetricsTest {
+  private static final String MODULE_DETAILS = "/modules/moduleDetails/{moduleCode}";
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Autowired
+  private StudentRepository testStudentRepository;
+
+  @Autowired
+  private ModuleRepository testModuleRepository;
+
+  @Autowired
+  private RegistrationRepository testRegistrationRepository;
+
+  @Autowired
+  private GradeRepository testGradeRepository;
+
+  @Autowired
+  private ModuleStatsRepository testModuleStatsRepository;
+
+  @Autowired
+  private CacheManager cacheManager;
+
+  /**
+   * Saves two students registered for a module, one of whom has a grade in it.
+   */
+  @BeforeEach
+  void setup() {
+    Module testModule = testModuleRepository.save(new Module("EXMP0010", "Example Course Name", true));
+    Student first = new Student(1L, "John", "Doe", "JohnDoe", "johnDoe@gmail.com");
+    first.registerModule(testModule);
+    first.addGrade(new Grade(testModule, 60));
+    testStudentRepository.save(first);
+    Student second = new Student(2L, "Jane", "Doe", "JaneDoe", "janeDoe@gmail.com");
+    second.registerModule(testModule);
+    testStudentRepository.save(second);
+  }
+
+  /**
+   * Returns the database and the caches to the pre-setup state (empty) to prevent tests from interfering with
+   * one another
+   */
+  @AfterEach
+  void tearDown() {
+    testRegistrationRepository.deleteAll();
+    testStudentRepository.deleteAll();
+    testGradeRepository.deleteAll();
+    testModuleRepository.deleteAll();
+    testModuleStatsRepository.deleteAll();
+    cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+  }
+
+  /**
+   * Tests that a module detail request records its SQL statements under its path pattern, together with the
+   * registrations it read and the grades it summarised
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @Test
+  void testModuleDetailsAreMeasured() throws Exception {
+    DistributionSummary registrations = meterRegistry.get("module.details.registrations").summary();
+    DistributionSummary grades = meterRegistry.get("module.details.grades").summary();
+    double aggregated = meterRegistry.get("module.details.statistics").tag("source", "aggregated").counter().count();
+    long scanned = registrations.count();
+    double registrationsTotal = registrations.totalAmount();
+    double gradesTotal = grades.totalAmount();
+
+    MvcResult action = mockMvc.perform(MockMvcRequestBuilders.get("/modules/moduleDetails/EXMP0010")).andReturn();
+    assertEquals(HttpStatus.OK.value(), action.getResponse().getStatus());
+
+    assertEquals(scanned + 1, registrations.count());
+    assertEquals(registrationsTotal + 2, registrations.totalAmount());
+    assertEquals(gradesTotal + 1, grades.totalAmount());
+    assertEquals(aggregated + 1,
+        meterRegistry.get("module.details.statistics").tag("source", "aggregated").counter().count());
+
+    DistributionSummary statements = meterRegistry.get("http.server.requests.sql").tag("uri", MODULE_DETAILS)
+        .tag("method", "GET").tag("status", "200").summary();
+    assertTrue(statements.count() >= 1);
+    assertTrue(statements.max() > 0);
+    assertTrue(meterRegistry.get("spring.data.repository.invocations")
+        .tag("repository", "RegistrationRepository").timers().size() > 0);
+  }
+
+  /**
+   * Tests that the metrics can be scraped from the Prometheus endpoint
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @Test
+  void testPrometheusEndpoint() throws Exception {
+    mockMvc.perform(MockMvcRequestBuilders.get("/modules/moduleDetails/EXMP0010")).andReturn();
+
+    MvcResult action = mockMvc.perform(MockMvcRequestBuilders.get("/actuator/prometheus")).andReturn();
+    assertEquals(HttpStatus.OK.value(), action.getResponse().getStatus());
+    String body = action.getResponse().getContentAsString();
+    assertTrue(body.contains("http_server_requests_sql_statements_count"));
+    assertTrue(body.contains("http_server_requests_seconds_bucket"));
+    assertTrue(body.contains("module_details_registrations_rows_count"));
+    assertTrue(body.contains("hikaricp_connections_active"));
+  }
+}
@@ -0,0 +1,37 @@
+package uk.ac.ucl.comp0010.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Assertions on the number of SQL statements Hibernate sends, for pinning the query count of an endpoint or a
+ * repository call so that an extra query per row fails the build.
+ */
+public final class SqlStatementAssertions {
+  private SqlStatementAssertions() {}
+
+  /**
+   * Runs an action on the current thread, such as a MockMvc request, and checks how many SQL statements it sent.
+   *
+   * @param counter the counter registered as Hibernate's statement inspector
+   * @param expected the exact number of statements the action should send
+   * @param action the action to run
+   * @param <T> the type of the action's result
+   * @return the result of the action
+   * @throws Exception if the action throws
+   */
+  public static <T> T assertStatements(SqlStatementCounter counter, int expected, Callable<T> action)
+      throws Exception {
+    counter.start();
+    T result;
+    int statements;
+    try {
+      result = action.call();
+    } finally {
+      statements = counter.stop();
+    }
+    assertEquals(expected, statements, "SQL statements sent");
+    return result;
+  }
+}
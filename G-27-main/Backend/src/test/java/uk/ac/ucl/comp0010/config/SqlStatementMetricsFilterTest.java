@@ -0,0 +1,87 @@
+package uk.ac.ucl.comp0010.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import java.lang.reflect.Method;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * The set of unit tests for the SqlStatementMetricsFilter class, which records the SQL statements of each request
+ * and checks them against the handler's budget.
+ */
+public class SqlStatementMetricsFilterTest {
+  private final SqlStatementCounter counter = new SqlStatementCounter();
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  /**
+   * Tests that a request within its handler's budget is recorded, and that the handler's budget is used instead of
+   * the default one
+   */
+  @Test
+  void testWithinBudget() throws Exception {
+    SqlStatementMetricsFilter filter = new SqlStatementMetricsFilter(counter, meterRegistry, 1, true);
+    filter.doFilter(request("budgeted"), new MockHttpServletResponse(), sending(3));
+
+    assertEquals(1, meterRegistry.get("http.server.requests.sql").tag("uri", "/test").summary().count());
+    assertEquals(3, meterRegistry.get("http.server.requests.sql").tag("uri", "/test").summary().totalAmount());
+    assertEquals(0, meterRegistry.find("http.server.requests.sql.over.budget").counters().size());
+  }
+
+  /**
+   * Tests that a request over its budget is counted, and only fails when the filter is set to fail
+   */
+  @Test
+  void testOverBudget() throws Exception {
+    SqlStatementMetricsFilter logging = new SqlStatementMetricsFilter(counter, meterRegistry, 2, false);
+    logging.doFilter(request("unbudgeted"), new MockHttpServletResponse(), sending(3));
+    assertEquals(1, meterRegistry.get("http.server.requests.sql.over.budget").counter().count());
+
+    SqlStatementMetricsFilter failing = new SqlStatementMetricsFilter(counter, meterRegistry, 2, true);
+    assertThrows(IllegalStateException.class,
+        () -> failing.doFilter(request("budgeted"), new MockHttpServletResponse(), sending(5)));
+    assertEquals(2, meterRegistry.get("http.server.requests.sql.over.budget").counter().count());
+  }
+
+  /**
+   * Tests that counts nest, so an outer count includes the statements of an inner one
+   */
+  @Test
+  void testCountsNest() {
+    counter.start();
+    counter.inspect("select 1");
+    counter.start();
+    counter.inspect("select 2");
+    assertEquals(1, counter.stop());
+    assertEquals(2, counter.stop());
+    assertEquals(0, counter.stop());
+  }
+
+  @SqlBudget(4)
+  void budgeted() {}
+
+  void unbudgeted() {}
+
+  private MockHttpServletRequest request(String handler) throws NoSuchMethodException {
+    Method method = SqlStatementMetricsFilterTest.class.getDeclaredMethod(handler);
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/test");
+    request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/test");
+    request.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE, new HandlerMethod(this, method));
+    return request;
+  }
+
+  private FilterChain sending(int statements) {
+    return (request, response) -> {
+      for (int i = 0; i < statements; i++) {
+        counter.inspect("select " + i);
+      }
+    };
+  }
+}
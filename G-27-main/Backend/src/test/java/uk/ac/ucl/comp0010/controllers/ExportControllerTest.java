@@ -0,0 +1,209 @@
+package uk.ac.ucl.comp0010.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.Map;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import uk.ac.ucl.comp0010.model.Grade;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.repository.GradeRepository;
+import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.repository.ModuleStatsRepository;
+import uk.ac.ucl.comp0010.repository.RegistrationRepository;
+import uk.ac.ucl.comp0010.repository.StudentRepository;
+
+/**
+ * The set of tests for the ExportController class, checking the content of each export in both formats and that
+ * the rows are streamed without loading any entities.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ExportControllerTest {
+  private static final String HEADER = "student_id,first_name,last_name,module_code,module_name,score";
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private StudentRepository testStudentRepository;
+
+  @Autowired
+  private ModuleRepository testModuleRepository;
+
+  @Autowired
+  private RegistrationRepository testRegistrationRepository;
+
+  @Autowired
+  private GradeRepository testGradeRepository;
+
+  @Autowired
+  private ModuleStatsRepository testModuleStatsRepository;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private CacheManager cacheManager;
+
+  @Value("${db.pool-size}")
+  private int poolSize;
+
+  /**
+   * Saves two students registered for two modules, the first with a grade in both and the second with a grade in
+   * the first only. The second module's name contains a comma, so its CSV field is quoted.
+   */
+  @BeforeEach
+  void setup() {
+    Module first = testModuleRepository.save(new Module("EXMP0010", "Example Course Name", true));
+    Module second = testModuleRepository.save(new Module("EXMP0011", "Example Course, Two", false));
+    Student john = new Student(1L, "John", "Doe", "JohnDoe", "johnDoe@gmail.com");
+    john.registerModule(first);
+    john.registerModule(second);
+    john.addGrade(new Grade(first, 70));
+    john.addGrade(new Grade(second, 65));
+    testStudentRepository.save(john);
+    Student jane = new Student(2L, "Jane", "Doe", "JaneDoe", "janeDoe@gmail.com");
+    jane.registerModule(first);
+    jane.registerModule(second);
+    jane.addGrade(new Grade(first, 80));
+    testStudentRepository.save(jane);
+  }
+
+  /**
+   * Returns the database and the caches to the pre-setup state (empty) to prevent tests from interfering with
+   * one another
+   */
+  @AfterEach
+  void tearDown() {
+    testRegistrationRepository.deleteAll();
+    testStudentRepository.deleteAll();
+    testGradeRepository.deleteAll();
+    testModuleRepository.deleteAll();
+    testModuleStatsRepository.deleteAll();
+    cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+  }
+
+  /**
+   * Tests that every grade is exported as CSV in grade ID order, as an attachment, without loading any entities
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @Test
+  void testExportGradesCsv() throws Exception {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    MvcResult result = export(MockMvcRequestBuilders.get("/grades/export"));
+
+    assertEquals(HttpStatus.OK.value(), result.getResponse().getStatus());
+    assertTrue(result.getResponse().getContentType().startsWith("text/csv"));
+    assertEquals("attachment; filename=\"grades.csv\"",
+        result.getResponse().getHeader(HttpHeaders.CONTENT_DISPOSITION));
+    assertEquals(HEADER + "\n"
+        + "1,John,Doe,EXMP0010,Example Course Name,70\n"
+        + "1,John,Doe,EXMP0011,\"Example Course, Two\",65\n"
+        + "2,Jane,Doe,EXMP0010,Example Course Name,80\n", result.getResponse().getContentAsString());
+    assertEquals(0, statistics.getEntityLoadCount());
+  }
+
+  /**
+   * Tests that a module's roster is exported as NDJSON in student ID order, with a null score for a student who
+   * has no grade in the module
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @Test
+  void testExportRosterNdjson() throws Exception {
+    MvcResult result = export(MockMvcRequestBuilders.get("/modules/moduleDetails/EXMP0011/export")
+        .param("format", "ndjson"));
+
+    assertEquals(HttpStatus.OK.value(), result.getResponse().getStatus());
+    assertTrue(result.getResponse().getContentType().startsWith("application/x-ndjson"));
+    String[] lines = result.getResponse().getContentAsString().split("\n");
+    assertEquals(2, lines.length);
+    Map<String, Object> john = objectMapper.readValue(lines[0], Map.class);
+    assertEquals(1, john.get("studentId"));
+    assertEquals("Example Course, Two", john.get("moduleName"));
+    assertEquals(65, john.get("score"));
+    Map<String, Object> jane = objectMapper.readValue(lines[1], Map.class);
+    assertEquals(2, jane.get("studentId"));
+    assertTrue(jane.containsKey("score"));
+    assertEquals(null, jane.get("score"));
+  }
+
+  /**
+   * Tests that a student's transcript is exported as CSV in module code order, with an empty score for a module
+   * the student has no grade in
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @Test
+  void testExportTranscriptCsv() throws Exception {
+    MvcResult result = export(MockMvcRequestBuilders.get("/students/studentDetail/2/export"));
+
+    assertEquals(HttpStatus.OK.value(), result.getResponse().getStatus());
+    assertEquals("attachment; filename=\"transcript-2.csv\"",
+        result.getResponse().getHeader(HttpHeaders.CONTENT_DISPOSITION));
+    assertEquals(HEADER + "\n"
+        + "2,Jane,Doe,EXMP0010,Example Course Name,80\n"
+        + "2,Jane,Doe,EXMP0011,\"Example Course, Two\",\n", result.getResponse().getContentAsString());
+  }
+
+  /**
+   * Tests that exporting the roster of an unknown module or the transcript of an unknown student responds with a
+   * 404 before anything is streamed, and that an unknown format responds with a 400
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @Test
+  void testExportRejectsUnknownTargets() throws Exception {
+    MvcResult module = mockMvc.perform(MockMvcRequestBuilders.get("/modules/moduleDetails/NOPE0000/export"))
+        .andReturn();
+    assertEquals(HttpStatus.NOT_FOUND.value(), module.getResponse().getStatus());
+
+    MvcResult student = mockMvc.perform(MockMvcRequestBuilders.get("/students/studentDetail/99/export"))
+        .andReturn();
+    assertEquals(HttpStatus.NOT_FOUND.value(), student.getResponse().getStatus());
+
+    MvcResult format = mockMvc.perform(MockMvcRequestBuilders.get("/grades/export").param("format", "xml"))
+        .andReturn();
+    assertEquals(HttpStatus.BAD_REQUEST.value(), format.getResponse().getStatus());
+  }
+
+  /**
+   * Tests that each export gives back its database bulkhead permit once it has been streamed, so more exports than
+   * there are permits can be made one after another
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @Test
+  void testExportReleasesBulkheadPermit() throws Exception {
+    for (int i = 0; i <= poolSize; i++) {
+      MvcResult result = export(MockMvcRequestBuilders.get("/grades/export"));
+      assertEquals(HttpStatus.OK.value(), result.getResponse().getStatus());
+    }
+  }
+
+  private MvcResult export(RequestBuilder request) throws Exception {
+    MvcResult started = mockMvc.perform(request).andReturn();
+    started.getAsyncResult();
+    return mockMvc.perform(asyncDispatch(started)).andReturn();
+  }
+}
@@ -2,8 +2,12 @@ package uk.ac.ucl.comp0010.controllers;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
@@ -13,26 +17,42 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import uk.ac.ucl.comp0010.dto.GradeTicket;
+import uk.ac.ucl.comp0010.dto.GradeUpload;
+import uk.ac.ucl.comp0010.dto.GradeUploadReport;
+import uk.ac.ucl.comp0010.dto.GradeUploadResult.Status;
 import uk.ac.ucl.comp0010.model.Grade;
 import uk.ac.ucl.comp0010.model.Module;
 import uk.ac.ucl.comp0010.model.Registration;
 import uk.ac.ucl.comp0010.model.Student;
 import uk.ac.ucl.comp0010.repository.GradeRepository;
 import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.repository.ModuleStatsRepository;
 import uk.ac.ucl.comp0010.repository.RegistrationRepository;
 import uk.ac.ucl.comp0010.repository.StudentRepository;
+import uk.ac.ucl.comp0010.service.GradeService;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 
 /**
  * The set of unit tests for the GradeController class, which handles the translation of frontend requests
  * to backend endpoints.
  */
-@SpringBootTest(webEnvironment =  WebEnvironment.MOCK)
+@SpringBootTest(webEnvironment =  WebEnvironment.MOCK, properties = "grades.ingest.queue-capacity=1")
 @AutoConfigureMockMvc
 public class GradeControllerTest {
 
@@ -54,6 +74,15 @@ public class GradeControllerTest {
   @Autowired
   private GradeRepository gradeRepository;
 
+  @Autowired
+  private ModuleStatsRepository moduleStatsRepository;
+
+  @Autowired
+  private CacheManager cacheManager;
+
+  @SpyBean
+  private GradeService gradeService;
+
   Module testModule;
   Student testStudent;
   
@@ -90,6 +119,8 @@ public class GradeControllerTest {
     testStudentRepository.deleteAll();
     gradeRepository.deleteAll();
     testModuleRepository.deleteAll();
+    moduleStatsRepository.deleteAll();
+    cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
   }
   
   /**
@@ -107,6 +138,7 @@ public class GradeControllerTest {
     MvcResult action = mockMvc.perform(MockMvcRequestBuilders.post("/grades/addGrade").contentType(
         MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(params))).andReturn();
     assertEquals(HttpStatus.OK.value(), action.getResponse().getStatus());
+    assertEquals("created", action.getResponse().getHeader("Grade-Outcome"));
 
     Grade testGrade = objectMapper.readValue(action.getResponse().getContentAsString(), Grade.class);
     assertEquals(testStudent.getId(), testGrade.getStudent().getId());
@@ -127,8 +159,11 @@ public class GradeControllerTest {
     MvcResult updateAction = mockMvc.perform(MockMvcRequestBuilders.post("/grades/addGrade").contentType(
       MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(updateParams))).andReturn();
     assertEquals(HttpStatus.OK.value(), action.getResponse().getStatus());
+    assertEquals("updated", updateAction.getResponse().getHeader("Grade-Outcome"));
+    long createdId = testGrade.getId();
     
     testGrade = objectMapper.readValue(updateAction.getResponse().getContentAsString(), Grade.class);
+    assertEquals(createdId, testGrade.getId());
     assertEquals(testStudent.getId(), testGrade.getStudent().getId());
     assertEquals(testStudent.getFirstName(), testGrade.getStudent().getFirstName());
     assertEquals(testStudent.getLastName(), testGrade.getStudent().getLastName());
@@ -139,6 +174,10 @@ public class GradeControllerTest {
     assertEquals(testModule.getName(), testGrade.getModule().getName());
     assertEquals(testModule.getMnc(), testGrade.getModule().getMnc());
     
+    Student updatedStudent = testStudentRepository.findById(testStudent.getId()).orElseThrow();
+    assertEquals(80, updatedStudent.getGradeTotal());
+    assertEquals(1, updatedStudent.getGradeCount());
+    
     Map<String, String> invalidModuleParams = new HashMap<>();
     Module newModule = new Module("REGS0101", "Registration Test Module", true);
     testModuleRepository.save(newModule);
@@ -159,7 +198,174 @@ public class GradeControllerTest {
       MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(nonExistentStudentParams))).andReturn();
     assertEquals(HttpStatus.NOT_FOUND.value(), secondFailedAction.getResponse().getStatus());
   }
+
+  /**
+   * Tests that the addGrade method responds with a conflict, and asks the client to retry in the Error-Message
+   * header, when a concurrent request recorded the same grade first
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @Test
+  void testAddGradeConflict() throws Exception {
+    doThrow(new DataIntegrityViolationException("Unique index or primary key violation"))
+        .when(gradeService).addGrade(anyLong(), anyString(), anyInt());
+    Map<String, String> params = Map.of("student_id", String.valueOf(testStudent.getId()),
+        "module_code", testModule.getCode(), "score", "50");
+
+    MvcResult action = mockMvc.perform(MockMvcRequestBuilders.post("/grades/addGrade").contentType(
+        MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(params))).andReturn();
+    assertEquals(HttpStatus.CONFLICT.value(), action.getResponse().getStatus());
+    assertEquals("Grade was recorded by another request, please retry",
+        action.getResponse().getHeader("Error-Message"));
+    assertTrue(gradeRepository.findByModuleCode(testModule.getCode()).isEmpty());
+  }
+  
+  /**
+   * Tests that the submitGrade method (mapped to /grades/submit) turns a grade away with 429 and a Retry-After
+   * header while the queue, which holds one grade in this test, is full because the writer is still busy
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @Test
+  void testSubmitGradeQueueFull() throws Exception {
+    CountDownLatch writing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      writing.countDown();
+      release.await();
+      return invocation.callRealMethod();
+    }).when(gradeService).addGrades(anyList());
+    String body = objectMapper.writeValueAsString(Map.of("student_id", testStudent.getId(),
+        "module_code", testModule.getCode(), "score", 60));
+
+    String location;
+    try {
+      MvcResult writtenFirst = mockMvc.perform(MockMvcRequestBuilders.post("/grades/submit")
+          .contentType(MediaType.APPLICATION_JSON).content(body)).andReturn();
+      assertEquals(HttpStatus.ACCEPTED.value(), writtenFirst.getResponse().getStatus());
+      assertTrue(writing.await(5, TimeUnit.SECONDS));
+      MvcResult queued = mockMvc.perform(MockMvcRequestBuilders.post("/grades/submit")
+          .contentType(MediaType.APPLICATION_JSON).content(body)).andReturn();
+      assertEquals(HttpStatus.ACCEPTED.value(), queued.getResponse().getStatus());
+      location = queued.getResponse().getHeader(HttpHeaders.LOCATION);
+
+      MvcResult full = mockMvc.perform(MockMvcRequestBuilders.post("/grades/submit")
+          .contentType(MediaType.APPLICATION_JSON).content(body)).andReturn();
+      assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), full.getResponse().getStatus());
+      assertEquals("1", full.getResponse().getHeader(HttpHeaders.RETRY_AFTER));
+      assertEquals("Too many grades are waiting to be recorded, please retry",
+          full.getResponse().getHeader("Error-Message"));
+    } finally {
+      release.countDown();
+    }
+
+    long deadline = System.currentTimeMillis() + 5000;
+    GradeTicket state;
+    do {
+      Thread.sleep(20);
+      MvcResult poll = mockMvc.perform(MockMvcRequestBuilders.get(location)).andReturn();
+      state = objectMapper.readValue(poll.getResponse().getContentAsString(), GradeTicket.class);
+    } while (state.status() == GradeTicket.Status.QUEUED && System.currentTimeMillis() < deadline);
+    assertEquals(GradeTicket.Status.UPDATED, state.status());
+  }
+
+  /**
+   * Tests that the addGrades method (mapped to /grades/addGrades) applies the valid rows of a JSON batch, lets
+   * a later row for the same student and module replace an earlier one, and reports the rows it rejected
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @Test
+  void testAddGrades() throws Exception {
+    testModuleRepository.save(new Module("REGS0101", "Registration Test Module", true));
+    List<GradeUpload> uploads = Arrays.asList(
+        new GradeUpload(testStudent.getId(), testModule.getCode(), 50),
+        new GradeUpload(testStudent.getId(), testModule.getCode(), 70),
+        new GradeUpload(111L, testModule.getCode(), 40),
+        new GradeUpload(testStudent.getId(), "REGS0101", 60),
+        new GradeUpload(null, testModule.getCode(), 60));
+
+    MvcResult action = mockMvc.perform(MockMvcRequestBuilders.post("/grades/addGrades").contentType(
+        MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(uploads))).andReturn();
+    assertEquals(HttpStatus.OK.value(), action.getResponse().getStatus());
+
+    GradeUploadReport report = objectMapper.readValue(action.getResponse().getContentAsString(),
+        GradeUploadReport.class);
+    assertEquals(1, report.created());
+    assertEquals(1, report.updated());
+    assertEquals(3, report.rejected());
+    assertEquals(List.of(Status.CREATED, Status.UPDATED, Status.NOT_FOUND, Status.NOT_REGISTERED, Status.INVALID),
+        report.rows().stream().map(row -> row.status()).toList());
+    assertEquals(5, report.rows().getLast().row());
+
+    Grade stored = gradeRepository.findByModuleAndStudent(testModule, testStudent).orElseThrow();
+    assertEquals(70, stored.getScore());
+    Student updatedStudent = testStudentRepository.findById(testStudent.getId()).orElseThrow();
+    assertEquals(70, updatedStudent.getGradeTotal());
+    assertEquals(1, updatedStudent.getGradeCount());
+  }
+
+  /**
+   * Tests that the addGradesCsv method (mapped to /grades/addGrades for text/csv) skips the header, updates an
+   * existing grade and reports a row whose score cannot be parsed
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @Test
+  void testAddGradesCsv() throws Exception {
+    Grade existing = new Grade(testModule, 30);
+    testStudent.addGrade(existing);
+    testStudentRepository.save(testStudent);
+    String csv = "student_id,module_code,score\n"
+        + testStudent.getId() + "," + testModule.getCode() + ",65\n"
+        + testStudent.getId() + "," + testModule.getCode() + ",abc\n";
+
+    MvcResult action = mockMvc.perform(MockMvcRequestBuilders.post("/grades/addGrades").contentType(
+        "text/csv").content(csv)).andReturn();
+    assertEquals(HttpStatus.OK.value(), action.getResponse().getStatus());
+
+    GradeUploadReport report = objectMapper.readValue(action.getResponse().getContentAsString(),
+        GradeUploadReport.class);
+    assertEquals(2, report.rows().size());
+    assertEquals(Status.UPDATED, report.rows().get(0).status());
+    assertEquals(Status.INVALID, report.rows().get(1).status());
+    assertEquals(65, gradeRepository.findByModuleAndStudent(testModule, testStudent).orElseThrow().getScore());
+  }
   
+  /**
+   * Tests that the viewGrades method (mapped to /grades/view) returns grades joined with their student and module
+   * names one page at a time, and that following the cursor reaches every grade exactly once
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @Test
+  void testViewGrades() throws Exception {
+    for (int i = 0; i < 2; i++) {
+      Module extraModule = testModuleRepository.save(new Module("VIEW000" + i, "View Module " + i, false));
+      testStudent.registerModule(extraModule);
+      testStudent.addGrade(new Grade(extraModule, 40 + i));
+    }
+    testStudent.addGrade(new Grade(testModule, 70));
+    testStudentRepository.save(testStudent);
+
+    MvcResult firstPage = mockMvc.perform(MockMvcRequestBuilders.get("/grades/view").param("size", "2")
+        .accept(MediaType.APPLICATION_JSON)).andReturn();
+    assertEquals(HttpStatus.OK.value(), firstPage.getResponse().getStatus());
+    Map<String, Object> page = objectMapper.readValue(firstPage.getResponse().getContentAsString(), Map.class);
+    List<Map<String, Object>> rows = (List<Map<String, Object>>) page.get("content");
+    assertEquals(2, rows.size());
+    assertEquals(testStudent.getFirstName(), rows.get(0).get("firstName"));
+    assertEquals(testStudent.getLastName(), rows.get(0).get("lastName"));
+    assertNotNull(rows.get(0).get("moduleName"));
+    assertEquals(rows.get(1).get("id"), page.get("nextCursor"));
+
+    MvcResult secondPage = mockMvc.perform(MockMvcRequestBuilders.get("/grades/view").param("size", "2")
+        .param("after", String.valueOf(page.get("nextCursor"))).accept(MediaType.APPLICATION_JSON)).andReturn();
+    page = objectMapper.readValue(secondPage.getResponse().getContentAsString(), Map.class);
+    List<Map<String, Object>> lastRows = (List<Map<String, Object>>) page.get("content");
+    assertEquals(1, lastRows.size());
+    assertNull(page.get("nextCursor"));
+    assertTrue(((Number) lastRows.get(0).get("id")).longValue() > ((Number) rows.get(1).get("id")).longValue());
+
+    MvcResult invalidPage = mockMvc.perform(MockMvcRequestBuilders.get("/grades/view").param("size", "0")).andReturn();
+    assertEquals(HttpStatus.BAD_REQUEST.value(), invalidPage.getResponse().getStatus());
+  }
+
   /**
    * Tests that the deleteGrade method in the GradeController correctly deletes a grade from the database,
    * and that it correctly returns a "not found" status when the grade does not exist in the database.
@@ -1,12 +1,24 @@
 package uk.ac.ucl.comp0010.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.aspectj.lang.annotation.After;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,16 +26,26 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import uk.ac.ucl.comp0010.dto.ImportReject;
+import uk.ac.ucl.comp0010.dto.ImportReject.Reason;
+import uk.ac.ucl.comp0010.dto.ImportReport;
 import uk.ac.ucl.comp0010.model.Grade;
 import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.repository.ImportCheckpointRepository;
 import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.repository.ModuleStatsRepository;
 import uk.ac.ucl.comp0010.repository.RegistrationRepository;
 import uk.ac.ucl.comp0010.repository.StudentRepository;
+import uk.ac.ucl.comp0010.service.ImportService;
 import uk.ac.ucl.comp0010.model.Module;
 
 /**
@@ -47,6 +69,21 @@ public class ModuleControllerTest {
 
   @Autowired
   private StudentRepository testStudentRepository;
+
+  @Autowired
+  private ModuleStatsRepository testModuleStatsRepository;
+
+  @Autowired
+  private ImportCheckpointRepository testCheckpointRepository;
+
+  @Autowired
+  private CacheManager cacheManager;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @SpyBean
+  private ImportService importService;
   private Module testModule;
   
   /**
@@ -67,6 +104,9 @@ public class ModuleControllerTest {
     testRegistrationRepository.deleteAll();
     testStudentRepository.deleteAll();
     testModuleRepository.deleteAll();
+    testModuleStatsRepository.deleteAll();
+    testCheckpointRepository.deleteAll();
+    cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
   }
   
   /**
@@ -83,6 +123,37 @@ public class ModuleControllerTest {
     assertEquals(failedAction.getResponse().getStatus(), HttpStatus.NOT_FOUND.value());
   }
 
+  /**
+   * Tests that the viewModules method (mapped to /modules/view) lists the modules in code order one page at a time,
+   * and that the Spring Data REST collection caps the page size a client can ask for
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never happen in this case.
+   */
+  @Test
+  void testViewModules() throws Exception {
+    testModuleRepository.save(new Module("COMP0001", "Intro", false));
+    testModuleRepository.save(new Module("COMP0020", "Advanced", true));
+
+    MvcResult firstPage = mockMvc.perform(MockMvcRequestBuilders.get("/modules/view").param("size", "2")
+        .accept(MediaType.APPLICATION_JSON)).andReturn();
+    assertEquals(HttpStatus.OK.value(), firstPage.getResponse().getStatus());
+    Map<String, Object> page = objectMapper.readValue(firstPage.getResponse().getContentAsString(), Map.class);
+    List<Map<String, Object>> modules = (List<Map<String, Object>>) page.get("content");
+    assertEquals(List.of("COMP0001", "COMP0010"), modules.stream().map(module -> module.get("code")).toList());
+    assertEquals("COMP0010", page.get("nextCursor"));
+
+    MvcResult lastPage = mockMvc.perform(MockMvcRequestBuilders.get("/modules/view").param("size", "2")
+        .param("after", "COMP0010").accept(MediaType.APPLICATION_JSON)).andReturn();
+    page = objectMapper.readValue(lastPage.getResponse().getContentAsString(), Map.class);
+    assertEquals(1, ((List<?>) page.get("content")).size());
+    assertEquals(null, page.get("nextCursor"));
+
+    MvcResult collection = mockMvc.perform(MockMvcRequestBuilders.get("/modules").param("size", "100000")
+        .accept(MediaType.APPLICATION_JSON)).andReturn();
+    Map<String, Object> pageInfo = (Map<String, Object>) objectMapper.readValue(
+        collection.getResponse().getContentAsString(), Map.class).get("page");
+    assertEquals(500, pageInfo.get("size"));
+  }
+
   /**
    * Tests that the sendModuleDetails method (mapped to /modules/moduleDetails/{moduleCode}) correctly retrieves module details.
    * @throws Exception thrown in the case of an invalid MockMvc request - should never happen in this case.
@@ -151,6 +222,7 @@ public class ModuleControllerTest {
     Map<String, Object> studentData1 = (Map<String, Object>) ((List<?>) response.get("students")).get(0);
     assertEquals(testStudent1.getId(), ((Number) studentData1.get("id")).longValue());
     assertEquals(testStudent1.getFirstName(), studentData1.get("firstName"));
+    assertEquals(35, ((Number) studentData1.get("score")).intValue());
 
     Map<String, Object> studentData2 = (Map<String, Object>) ((List<?>) response.get("students")).get(1);
     assertEquals(testStudent2.getId(), ((Number) studentData2.get("id")).longValue());
@@ -171,6 +243,7 @@ public class ModuleControllerTest {
     Map<String, Object> studentData6 = (Map<String, Object>) ((List<?>) response.get("students")).get(5);
     assertEquals(testStudent6.getId(), ((Number) studentData6.get("id")).longValue());
     assertEquals(testStudent6.getFirstName(), studentData6.get("firstName"));
+    Assertions.assertNull(studentData6.get("score"));
 
     assertNotNull(response.get("pieChart"));
     Map<String, Integer> pieChart = (Map<String, Integer>) response.get("pieChart");
@@ -179,5 +252,250 @@ public class ModuleControllerTest {
     assertEquals(1, pieChart.get("50-60").intValue());
     assertEquals(1, pieChart.get("60-70").intValue());
     assertEquals(1, pieChart.get("70-100").intValue());
+
+    assertEquals(5, ((Number) response.get("totalGrades")).intValue());
+    assertEquals(55.0, ((Number) response.get("average")).doubleValue());
+    assertEquals(35, ((Number) response.get("minimum")).intValue());
+    assertEquals(75, ((Number) response.get("maximum")).intValue());
+    }
+
+  /**
+   * Tests that the statistics returned by sendModuleDetails follow grades that are added, updated and deleted
+   * through the grade endpoints.
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never happen in this case.
+   */
+  @Test
+  void testSendModuleDetailsAfterGradeWrites() throws Exception {
+    for (long id = 1; id <= 3; id++) {
+      Student student = new Student(id, "first" + id, "last" + id, "user" + id, "user" + id + "@example.com");
+      student.registerModule(testModule);
+      testStudentRepository.save(student);
     }
+    postGrade(1L, 35);
+    postGrade(2L, 65);
+    postGrade(3L, 90);
+    postGrade(2L, 55);
+    MvcResult deleted = mockMvc.perform(MockMvcRequestBuilders.delete("/students/studentDetail/registrations/{studentId}/{moduleCode}",
+        3L, testModule.getCode())).andReturn();
+    assertEquals(HttpStatus.OK.value(), deleted.getResponse().getStatus());
+
+    MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/modules/moduleDetails/" + testModule.getCode())
+        .accept(MediaType.APPLICATION_JSON)).andReturn();
+    Map<String, Object> response = objectMapper.readValue(result.getResponse().getContentAsString(), Map.class);
+
+    assertEquals(2, ((List<?>) response.get("students")).size());
+    assertEquals(2, ((Number) response.get("totalGrades")).intValue());
+    assertEquals(45.0, ((Number) response.get("average")).doubleValue());
+    assertEquals(35, ((Number) response.get("minimum")).intValue());
+    assertEquals(55, ((Number) response.get("maximum")).intValue());
+    Map<String, Integer> pieChart = (Map<String, Integer>) response.get("pieChart");
+    assertEquals(1, pieChart.get("0-40").intValue());
+    assertEquals(1, pieChart.get("50-60").intValue());
+    assertEquals(0, pieChart.get("60-70").intValue());
+    assertEquals(0, pieChart.get("70-100").intValue());
+  }
+
+  /**
+   * Tests that sendModuleDetails answers a request whose If-None-Match header matches the module's ETag with 304,
+   * and sends a new ETag once a student registers for the module or a registered student is renamed.
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never happen in this case.
+   */
+  @Test
+  void testSendModuleDetailsNotModified() throws Exception {
+    Student student = new Student(1L, "first", "last", "user", "user@example.com");
+    student.registerModule(testModule);
+    testStudentRepository.save(student);
+    String path = "/modules/moduleDetails/" + testModule.getCode();
+
+    String etag = mockMvc.perform(MockMvcRequestBuilders.get(path)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    assertNotNull(etag);
+    MvcResult notModified = mockMvc.perform(MockMvcRequestBuilders.get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andReturn();
+    assertEquals(HttpStatus.NOT_MODIFIED.value(), notModified.getResponse().getStatus());
+
+    testStudentRepository.save(new Student(2L, "first2", "last2", "user2", "user2@example.com"));
+    Map<String, String> params = Map.of("student_id", "2", "module_code", testModule.getCode());
+    mockMvc.perform(MockMvcRequestBuilders.post("/students/studentDetail/register").contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(params))).andReturn();
+    MvcResult registered = mockMvc.perform(MockMvcRequestBuilders.get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andReturn();
+    assertEquals(HttpStatus.OK.value(), registered.getResponse().getStatus());
+    etag = registered.getResponse().getHeader(HttpHeaders.ETAG);
+
+    Map<String, String> renamed = Map.of("id", "1", "firstName", "renamed", "lastName", "last", "username", "user",
+        "email", "user@example.com");
+    MvcResult rename = mockMvc.perform(MockMvcRequestBuilders.post("/students").contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(renamed))).andReturn();
+    assertEquals(HttpStatus.CREATED.value(), rename.getResponse().getStatus());
+    MvcResult modified = mockMvc.perform(MockMvcRequestBuilders.get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andReturn();
+    assertEquals(HttpStatus.OK.value(), modified.getResponse().getStatus());
+    Assertions.assertNotEquals(etag, modified.getResponse().getHeader(HttpHeaders.ETAG));
+  }
+
+  /**
+   * Tests that the sendModuleDetails method reads a module with more registered students than are batch-loaded at
+   * once in a fixed number of statements, as the students are read as plain rows
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @Test
+  void testSendModuleDetailsStatementCount() throws Exception {
+    int registered = 150;
+    List<Student> students = new ArrayList<>();
+    for (long id = 1; id <= registered; id++) {
+      Student student = new Student(id, "first", "last", "user" + id, "user" + id + "@example.com");
+      student.registerModule(testModule);
+      student.addGrade(new Grade(testModule, (int) (id % 100)));
+      students.add(student);
+    }
+    testStudentRepository.saveAll(students);
+
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/modules/moduleDetails/" + testModule.getCode())
+        .accept(MediaType.APPLICATION_JSON)).andReturn();
+    assertEquals(HttpStatus.OK.value(), result.getResponse().getStatus());
+    assertEquals(3, statistics.getPrepareStatementCount());
+
+    Map<String, Object> response = objectMapper.readValue(result.getResponse().getContentAsString(), Map.class);
+    List<Map<String, Object>> rows = (List<Map<String, Object>>) response.get("students");
+    assertEquals(registered, rows.size());
+    assertEquals(1, ((Number) rows.get(0).get("score")).intValue());
+    assertEquals(registered, ((Number) response.get("totalGrades")).intValue());
+  }
+
+  /**
+   * Tests that grades recorded for different students on the same module at the same time each move on the
+   * module's revision, so the ETag sent afterwards has moved on by one for each grade
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @Test
+  void testSendModuleDetailsConcurrentWrites() throws Exception {
+    int writers = 8;
+    for (long id = 1; id <= writers; id++) {
+      Student student = new Student(id, "first", "last", "user" + id, "user" + id + "@example.com");
+      student.registerModule(testModule);
+      testStudentRepository.save(student);
+    }
+    String path = "/modules/moduleDetails/" + testModule.getCode();
+    postGrade(1L, 50);
+    String etag = mockMvc.perform(MockMvcRequestBuilders.get(path)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    long revision = Long.parseLong(etag.replace("\"", ""));
+
+    ExecutorService executor = Executors.newFixedThreadPool(writers);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> results = new ArrayList<>();
+    for (long id = 2; id <= writers; id++) {
+      long studentId = id;
+      results.add(executor.submit(() -> {
+        start.await();
+        postGrade(studentId, 60);
+        return null;
+      }));
+    }
+    start.countDown();
+    for (Future<?> result : results) {
+      result.get();
+    }
+    executor.shutdown();
+
+    MvcResult modified = mockMvc.perform(MockMvcRequestBuilders.get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andReturn();
+    assertEquals(HttpStatus.OK.value(), modified.getResponse().getStatus());
+    assertEquals("\"" + (revision + writers - 1) + "\"", modified.getResponse().getHeader(HttpHeaders.ETAG));
+  }
+
+  /**
+   * Tests that the ETag of a module's details never returns to an earlier value, when one student leaves the
+   * module and another joins it, or when the module is deleted and created again with the same code
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @Test
+  void testSendModuleDetailsEtagNeverRepeats() throws Exception {
+    testStudentRepository.save(new Student(1L, "first1", "last1", "user1", "user1@example.com"));
+    testStudentRepository.save(new Student(2L, "first2", "last2", "user2", "user2@example.com"));
+    String path = "/modules/moduleDetails/" + testModule.getCode();
+    List<String> etags = new ArrayList<>();
+    etags.add(etag(path));
+
+    register(1L);
+    etags.add(etag(path));
+    mockMvc.perform(MockMvcRequestBuilders.delete("/students/studentDetail/registrations/1/" + testModule.getCode()))
+        .andReturn();
+    etags.add(etag(path));
+    register(2L);
+    etags.add(etag(path));
+    mockMvc.perform(MockMvcRequestBuilders.delete("/students/studentDetail/registrations/2/" + testModule.getCode()))
+        .andReturn();
+    MvcResult deleted = mockMvc.perform(MockMvcRequestBuilders.delete("/modules/" + testModule.getCode())).andReturn();
+    assertEquals(HttpStatus.OK.value(), deleted.getResponse().getStatus());
+    testModuleRepository.save(new Module(testModule.getCode(), testModule.getName(), testModule.getMnc()));
+    etags.add(etag(path));
+    register(1L);
+    etags.add(etag(path));
+
+    assertEquals(etags.size(), etags.stream().distinct().count(), etags.toString());
+  }
+
+  private String etag(String path) throws Exception {
+    return mockMvc.perform(MockMvcRequestBuilders.get(path)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+  }
+
+  private void register(long studentId) throws Exception {
+    Map<String, String> params = Map.of("student_id", String.valueOf(studentId), "module_code", testModule.getCode());
+    MvcResult action = mockMvc.perform(MockMvcRequestBuilders.post("/students/studentDetail/register")
+        .contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(params))).andReturn();
+    assertEquals(HttpStatus.OK.value(), action.getResponse().getStatus());
+  }
+
+  private void postGrade(long studentId, int score) throws Exception {
+    Map<String, String> params = Map.of("student_id", String.valueOf(studentId),
+        "module_code", testModule.getCode(), "score", String.valueOf(score));
+    MvcResult action = mockMvc.perform(MockMvcRequestBuilders.post("/grades/addGrade")
+        .contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(params))).andReturn();
+    assertEquals(HttpStatus.OK.value(), action.getResponse().getStatus());
+  }
+
+  /**
+   * Tests that the importModules method (mapped to /modules/import) loads the rows of a CSV document and reports
+   * the ones whose code is taken or whose mnc is not a boolean
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never happen in this case.
+   */
+  @Test
+  void testImportModules() throws Exception {
+    MvcResult action = mockMvc.perform(MockMvcRequestBuilders.post("/modules/import").contentType("text/csv")
+        .content("code,name,mnc\nCOMP0011,Algorithms,true\nCOMP0010,Clash,true\nCOMP0012,Compilers,maybe\n"))
+        .andReturn();
+    assertEquals(HttpStatus.OK.value(), action.getResponse().getStatus());
+    ImportReport report = objectMapper.readValue(action.getResponse().getContentAsString(), ImportReport.class);
+
+    assertEquals(1, report.imported());
+    assertEquals(List.of(new ImportReject(2, "COMP0010", Reason.DUPLICATE_KEY),
+        new ImportReject(3, "COMP0012", Reason.INVALID)), report.rejects());
+    assertEquals("Software Engineering", testModuleRepository.findById("COMP0010").get().getName());
+  }
+
+  /**
+   * Tests that the importModules method responds with a conflict when its checkpoint was kept by a student import,
+   * and when a batch clashes with a row written concurrently, naming the problem in the Error-Message header
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never happen in this case.
+   */
+  @Test
+  void testImportModulesConflict() throws Exception {
+    importService.importStudents(new StringReader("1,John,Doe,JohnDoe,johnDoe@gmail.com\n"), "intake");
+
+    MvcResult wrongKind = mockMvc.perform(MockMvcRequestBuilders.post("/modules/import").param("checkpoint", "intake")
+        .contentType("text/csv").content("COMP0011,Algorithms,true\n")).andReturn();
+    assertEquals(HttpStatus.CONFLICT.value(), wrongKind.getResponse().getStatus());
+    assertNotNull(wrongKind.getResponse().getHeader("Error-Message"));
+    assertFalse(testModuleRepository.existsById("COMP0011"));
+
+    doThrow(new DataIntegrityViolationException("Unique index or primary key violation"))
+        .when(importService).importModules(any(), any());
+    MvcResult clash = mockMvc.perform(MockMvcRequestBuilders.post("/modules/import")
+        .contentType("text/csv").content("COMP0011,Algorithms,true\n")).andReturn();
+    assertEquals(HttpStatus.CONFLICT.value(), clash.getResponse().getStatus());
+    assertEquals("A row was written concurrently, please resume the import",
+        clash.getResponse().getHeader("Error-Message"));
+  }
 }
\ No newline at end of file
@@ -0,0 +1,193 @@
+package uk.ac.ucl.comp0010.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static uk.ac.ucl.comp0010.config.SqlStatementAssertions.assertStatements;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import uk.ac.ucl.comp0010.config.SqlStatementCounter;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.repository.GradeRepository;
+import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.repository.ModuleStatsRepository;
+import uk.ac.ucl.comp0010.repository.RegistrationRepository;
+import uk.ac.ucl.comp0010.repository.StudentRepository;
+
+/**
+ * The set of tests that pin the number of SQL statements each controller method sends with empty caches. The
+ * fixture has several students per module, so a method that starts loading rows one at a time changes its count
+ * and fails here. If a change is meant to alter a count, update both the expected count and the method's
+ * SqlBudget.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class QueryCountTest {
+  private static final int STUDENTS = 4;
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private SqlStatementCounter counter;
+
+  @Autowired
+  private StudentRepository testStudentRepository;
+
+  @Autowired
+  private ModuleRepository testModuleRepository;
+
+  @Autowired
+  private RegistrationRepository testRegistrationRepository;
+
+  @Autowired
+  private GradeRepository testGradeRepository;
+
+  @Autowired
+  private ModuleStatsRepository testModuleStatsRepository;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private CacheManager cacheManager;
+
+  private long gradeId;
+
+  /**
+   * Saves students who are all registered for two modules and have a grade in the first, and a third module that
+   * nobody is registered for, and then empties every cache.
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @BeforeEach
+  void setup() throws Exception {
+    // Other test classes may leave soft locks for the same IDs in the second-level cache
+    entityManagerFactory.getCache().evictAll();
+    Module first = testModuleRepository.save(new Module("EXMP0010", "Example Course Name", true));
+    Module second = testModuleRepository.save(new Module("EXMP0011", "Example Course Two", false));
+    testModuleRepository.save(new Module("EXMP0012", "Example Course Three", false));
+    for (long id = 1; id <= STUDENTS; id++) {
+      Student student = new Student(id, "John" + id, "Doe", "JohnDoe" + id, "john" + id + "@gmail.com");
+      student.registerModule(first);
+      student.registerModule(second);
+      testStudentRepository.save(student);
+    }
+    // The grades go through the API so that the first module has materialised statistics
+    for (long id = 1; id <= STUDENTS; id++) {
+      addGrade(id, "EXMP0010", 50 + (int) id);
+    }
+    gradeId = testGradeRepository.findByModuleCode("EXMP0010").get(0).getId();
+    entityManagerFactory.getCache().evictAll();
+    cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+  }
+
+  /**
+   * Returns the database and the caches to the pre-setup state (empty) to prevent tests from interfering with
+   * one another
+   */
+  @AfterEach
+  void tearDown() {
+    testRegistrationRepository.deleteAll();
+    testStudentRepository.deleteAll();
+    testGradeRepository.deleteAll();
+    testModuleRepository.deleteAll();
+    testModuleStatsRepository.deleteAll();
+    cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+  }
+
+  /**
+   * Tests the query counts of the ModuleController methods
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @Test
+  void testModuleControllerQueryCounts() throws Exception {
+    expect(3, HttpStatus.OK, MockMvcRequestBuilders.get("/modules/moduleDetails/EXMP0010"));
+    expect(4, HttpStatus.OK, MockMvcRequestBuilders.get("/modules/moduleDetails/EXMP0011"));
+    expect(1, HttpStatus.OK, MockMvcRequestBuilders.get("/modules/view"));
+    expect(2, HttpStatus.OK, MockMvcRequestBuilders.delete("/modules/{id}", "EXMP0012"));
+  }
+
+  /**
+   * Tests the query counts of the StudentController methods
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @Test
+  void testStudentControllerQueryCounts() throws Exception {
+    expect(4, HttpStatus.OK, MockMvcRequestBuilders.get("/students/studentDetail/1"));
+    expect(0, HttpStatus.OK, MockMvcRequestBuilders.get("/students/studentDetail/computeAverage/1"));
+    expect(1, HttpStatus.OK, MockMvcRequestBuilders.get("/students/view"));
+    expect(10, HttpStatus.OK, json(MockMvcRequestBuilders.post("/students/studentDetail/register"),
+        Map.of("student_id", "1", "module_code", "EXMP0012")));
+    expect(7, HttpStatus.OK, json(MockMvcRequestBuilders.post("/students/studentDetail/registerAll"),
+        List.of(Map.of("student_id", "2", "module_code", "EXMP0012"),
+            Map.of("student_id", "3", "module_code", "EXMP0012"))));
+    expect(12, HttpStatus.OK,
+        MockMvcRequestBuilders.delete("/students/studentDetail/registrations/{studentId}/{moduleCode}", 4L,
+            "EXMP0010"));
+    expect(17, HttpStatus.OK, MockMvcRequestBuilders.delete("/students/{id}", 1L));
+  }
+
+  /**
+   * Tests the query counts of the GradeController methods
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @Test
+  void testGradeControllerQueryCounts() throws Exception {
+    expect(10, HttpStatus.OK, json(MockMvcRequestBuilders.post("/grades/addGrade"),
+        Map.of("student_id", "1", "module_code", "EXMP0010", "score", "80")));
+    expect(11, HttpStatus.OK, json(MockMvcRequestBuilders.post("/grades/addGrade"),
+        Map.of("student_id", "1", "module_code", "EXMP0011", "score", "80")));
+    expect(12, HttpStatus.OK, json(MockMvcRequestBuilders.post("/grades/addGrades"),
+        List.of(Map.of("student_id", "2", "module_code", "EXMP0011", "score", "70"),
+            Map.of("student_id", "3", "module_code", "EXMP0011", "score", "70"),
+            Map.of("student_id", "2", "module_code", "EXMP0010", "score", "70"))));
+    expect(12, HttpStatus.OK, MockMvcRequestBuilders.post("/grades/addGrades").contentType("text/csv")
+        .content("student_id,module_code,score\n4,EXMP0011,65\n3,EXMP0010,65\n"));
+    expect(1, HttpStatus.OK, MockMvcRequestBuilders.get("/grades/view"));
+    expect(10, HttpStatus.OK, MockMvcRequestBuilders.delete("/grades/{id}", gradeId));
+  }
+
+  /**
+   * Tests the query counts of the Spring Data REST endpoints, which are held to the default budget
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @Test
+  void testRepositoryEndpointQueryCounts() throws Exception {
+    expect(1, HttpStatus.OK, MockMvcRequestBuilders.get("/students"));
+    expect(1, HttpStatus.OK, MockMvcRequestBuilders.get("/modules"));
+  }
+
+  private void expect(int statements, HttpStatus status, RequestBuilder request) throws Exception {
+    MvcResult result = assertStatements(counter, statements, () -> mockMvc.perform(request).andReturn());
+    assertEquals(status.value(), result.getResponse().getStatus());
+  }
+
+  private RequestBuilder json(MockHttpServletRequestBuilder request, Object body) throws Exception {
+    return request.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(body));
+  }
+
+  private void addGrade(long studentId, String moduleCode, int score) throws Exception {
+    mockMvc.perform(json(MockMvcRequestBuilders.post("/grades/addGrade"),
+        Map.of("student_id", String.valueOf(studentId), "module_code", moduleCode, "score", String.valueOf(score))))
+        .andReturn();
+  }
+}
@@ -1,13 +1,26 @@
 package uk.ac.ucl.comp0010.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,21 +29,32 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import uk.ac.ucl.comp0010.dto.ImportReject;
+import uk.ac.ucl.comp0010.dto.ImportReject.Reason;
+import uk.ac.ucl.comp0010.dto.ImportReport;
 import uk.ac.ucl.comp0010.model.Grade;
 import uk.ac.ucl.comp0010.model.Module;
 import uk.ac.ucl.comp0010.model.Registration;
 import uk.ac.ucl.comp0010.model.Student;
 import uk.ac.ucl.comp0010.repository.GradeRepository;
+import uk.ac.ucl.comp0010.repository.ImportCheckpointRepository;
 import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.repository.ModuleStatsRepository;
 import uk.ac.ucl.comp0010.repository.RegistrationRepository;
 import uk.ac.ucl.comp0010.repository.StudentRepository;
+import uk.ac.ucl.comp0010.service.ImportService;
 
-@SpringBootTest(webEnvironment =  WebEnvironment.MOCK)
+@SpringBootTest(webEnvironment =  WebEnvironment.MOCK,
+    properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @AutoConfigureMockMvc
 public class StudentControllerTest {
 
@@ -52,6 +76,21 @@ public class StudentControllerTest {
   @Autowired
   private GradeRepository testGradeRepository;
 
+  @Autowired
+  private ModuleStatsRepository testModuleStatsRepository;
+
+  @Autowired
+  private ImportCheckpointRepository testCheckpointRepository;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @SpyBean
+  private ImportService importService;
+
+  @Autowired
+  private CacheManager cacheManager;
+
   Student testStudent;
   Module testModule;
   Grade testGrade;
@@ -81,7 +120,7 @@ public class StudentControllerTest {
 
     testStudent.addGrade(testGrade);
     testStudent.registerModule(testModule);
-    testStudentRepository.save(testStudent);
+    testStudent = testStudentRepository.save(testStudent);
   }
 
   /**
@@ -94,6 +133,9 @@ public class StudentControllerTest {
     testModuleRepository.deleteAll();
     testRegistrationRepository.deleteAll();
     testGradeRepository.deleteAll();
+    testModuleStatsRepository.deleteAll();
+    testCheckpointRepository.deleteAll();
+    cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
   }
 
   /**
@@ -129,6 +171,145 @@ public class StudentControllerTest {
     assertEquals(1, ((List<?>) response.get("grades")).size());
   }
 
+  /**
+   * Tests that the controller class's sendStudentDetails method loads the student, their registrations, their
+   * grades and all of their modules in three SQL statements however many modules the student has, and in two once
+   * the student's personal details are cached
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @Test
+  void testSendStudentDetailStatementCount() throws Exception {
+    for (int i = 0; i < 3; i++) {
+      Module extraModule = testModuleRepository.save(new Module("EXTR000" + i, "Extra Module " + i, false));
+      testStudent.registerModule(extraModule);
+      testStudent.addGrade(new Grade(extraModule, 60 + i));
+    }
+    testStudentRepository.save(testStudent);
+
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/students/studentDetail/" + testStudent.getId()).accept(
+        MediaType.APPLICATION_JSON)).andReturn();
+    assertEquals(HttpStatus.OK.value(), result.getResponse().getStatus());
+    assertEquals(3, statistics.getPrepareStatementCount());
+
+    statistics.clear();
+    result = mockMvc.perform(MockMvcRequestBuilders.get("/students/studentDetail/" + testStudent.getId()).accept(
+        MediaType.APPLICATION_JSON)).andReturn();
+    assertEquals(2, statistics.getPrepareStatementCount());
+
+    Map<String, Object> response = objectMapper.readValue(result.getResponse().getContentAsString(), Map.class);
+    assertEquals(4, ((List<?>) response.get("registeredModules")).size());
+    List<Map<String, Object>> grades = (List<Map<String, Object>>) response.get("grades");
+    assertEquals(4, grades.size());
+    assertNotNull(((Map<String, Object>) grades.get(0).get("module")).get("name"));
+  }
+
+  /**
+   * Tests that sendStudentDetails and sendAverage answer a request whose If-None-Match header matches the student's
+   * ETag with 304 and no body, and send a new ETag once the student's grades change
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @Test
+  void testSendStudentDetailNotModified() throws Exception {
+    String path = "/students/studentDetail/" + testStudent.getId();
+    MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get(path)).andReturn();
+    String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+    assertNotNull(etag);
+
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    MvcResult notModified = mockMvc.perform(MockMvcRequestBuilders.get(path)
+        .header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn();
+    assertEquals(HttpStatus.NOT_MODIFIED.value(), notModified.getResponse().getStatus());
+    assertEquals("", notModified.getResponse().getContentAsString());
+    assertEquals(0, statistics.getPrepareStatementCount());
+
+    MvcResult average = mockMvc.perform(MockMvcRequestBuilders.get("/students/studentDetail/computeAverage/" + testStudent.getId())
+        .header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn();
+    assertEquals(HttpStatus.NOT_MODIFIED.value(), average.getResponse().getStatus());
+
+    Map<String, String> params = Map.of("student_id", String.valueOf(testStudent.getId()),
+        "module_code", testModule.getCode(), "score", "75");
+    mockMvc.perform(MockMvcRequestBuilders.post("/grades/addGrade").contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(params))).andReturn();
+
+    MvcResult modified = mockMvc.perform(MockMvcRequestBuilders.get(path)
+        .header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn();
+    assertEquals(HttpStatus.OK.value(), modified.getResponse().getStatus());
+    Assertions.assertNotEquals(etag, modified.getResponse().getHeader(HttpHeaders.ETAG));
+  }
+
+  /**
+   * Tests that registrations made for the same student at the same time each move the student's revision on, so
+   * the ETag sent afterwards differs from the one before them and from every one in between
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @Test
+  void testSendStudentDetailConcurrentWrites() throws Exception {
+    String path = "/students/studentDetail/" + testStudent.getId();
+    String etag = mockMvc.perform(MockMvcRequestBuilders.get(path)).andReturn().getResponse()
+        .getHeader(HttpHeaders.ETAG);
+    long revision = testStudentRepository.findRevisionById(testStudent.getId()).orElseThrow();
+
+    int writers = 8;
+    List<String> codes = new ArrayList<>();
+    for (int i = 0; i < writers; i++) {
+      codes.add(testModuleRepository.save(new Module("CONC010" + i, "Concurrent Module", false)).getCode());
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(writers);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<MvcResult>> results = new ArrayList<>();
+    for (String code : codes) {
+      Map<String, String> params = Map.of("student_id", String.valueOf(testStudent.getId()), "module_code", code);
+      results.add(executor.submit(() -> {
+        start.await();
+        return mockMvc.perform(MockMvcRequestBuilders.post("/students/studentDetail/register")
+            .contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(params))).andReturn();
+      }));
+    }
+    start.countDown();
+    for (Future<MvcResult> result : results) {
+      assertEquals(HttpStatus.OK.value(), result.get().getResponse().getStatus());
+    }
+    executor.shutdown();
+
+    MvcResult modified = mockMvc.perform(MockMvcRequestBuilders.get(path)
+        .header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn();
+    assertEquals(HttpStatus.OK.value(), modified.getResponse().getStatus());
+    assertEquals("\"" + testStudent.getId() + "-" + (revision + writers) + "\"",
+        modified.getResponse().getHeader(HttpHeaders.ETAG));
+  }
+
+  /**
+   * Tests that the controller class's viewStudents method (mapped to /students/view) lists the students' personal
+   * details in ID order one page at a time
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @Test
+  void testViewStudents() throws Exception {
+    testStudentRepository.save(new Student(2L, "Jane", "Roe", "JaneRoe", "janeRoe@gmail.com"));
+
+    MvcResult firstPage = mockMvc.perform(MockMvcRequestBuilders.get("/students/view").param("size", "1").accept(
+        MediaType.APPLICATION_JSON)).andReturn();
+    assertEquals(HttpStatus.OK.value(), firstPage.getResponse().getStatus());
+    Map<String, Object> page = objectMapper.readValue(firstPage.getResponse().getContentAsString(), Map.class);
+    List<Map<String, Object>> students = (List<Map<String, Object>>) page.get("content");
+    assertEquals(1, students.size());
+    assertEquals(testStudent.getUsername(), students.get(0).get("username"));
+    assertEquals(testStudent.getId(), ((Number) page.get("nextCursor")).longValue());
+
+    MvcResult lastPage = mockMvc.perform(MockMvcRequestBuilders.get("/students/view").param("size", "1")
+        .param("after", String.valueOf(page.get("nextCursor"))).accept(MediaType.APPLICATION_JSON)).andReturn();
+    page = objectMapper.readValue(lastPage.getResponse().getContentAsString(), Map.class);
+    students = (List<Map<String, Object>>) page.get("content");
+    assertEquals("JaneRoe", students.get(0).get("username"));
+    Assertions.assertNull(page.get("nextCursor"));
+
+    MvcResult invalidPage = mockMvc.perform(MockMvcRequestBuilders.get("/students/view").param("size", "-1")).andReturn();
+    assertEquals(HttpStatus.BAD_REQUEST.value(), invalidPage.getResponse().getStatus());
+  }
+
   /**
    * Tests that the controller class's registerStudent method (mapped to /students/studentDetail/register) correctly registers a student
    * to a module
@@ -157,6 +338,65 @@ public class StudentControllerTest {
     
   }
 
+  /**
+   * Tests that the controller class's registerStudents method (mapped to /students/studentDetail/registerAll)
+   * registers the valid rows and reports the outcome of every row
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @Test
+  void testRegisterStudents() throws Exception {
+    Module testModuleTwo = new Module("EXMP0010Two", "Example Course Name Two", false);
+    testModuleTwo = testModuleRepository.save(testModuleTwo);
+    String studentId = String.valueOf(testStudent.getId());
+    List<Map<String, String>> rows = List.of(
+        Map.of("student_id", studentId, "module_code", testModuleTwo.getCode()),
+        Map.of("student_id", studentId, "module_code", testModule.getCode()),
+        Map.of("student_id", studentId, "module_code", testModuleTwo.getCode()),
+        Map.of("student_id", studentId, "module_code", "MISSING"),
+        Map.of("student_id", studentId));
+
+    MvcResult action = mockMvc.perform(MockMvcRequestBuilders.post("/students/studentDetail/registerAll").contentType(
+        MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(rows))).andReturn();
+    assertEquals(HttpStatus.OK.value(), action.getResponse().getStatus());
+
+    Map<String, Object> report = objectMapper.readValue(action.getResponse().getContentAsString(), Map.class);
+    assertEquals(1, report.get("registered"));
+    assertEquals(4, report.get("rejected"));
+    List<String> statuses = ((List<Map<String, Object>>) report.get("rows")).stream()
+        .map(row -> (String) row.get("status")).toList();
+    assertEquals(List.of("REGISTERED", "ALREADY_REGISTERED", "ALREADY_REGISTERED", "NOT_FOUND", "INVALID"), statuses);
+    assertEquals(2, testRegistrationRepository.count());
+  }
+
+  /**
+   * Tests that the registerStudents method checks a request naming more modules than fit in one IN list (a
+   * thousand) against the existing registrations of every module, including those bound in the second list
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @Test
+  void testRegisterStudentsChunksModuleCodes() throws Exception {
+    List<Module> modules = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      modules.add(new Module(String.format("CHNK%04d", i), "Chunked Course " + i, false));
+    }
+    testModuleRepository.saveAll(modules);
+    List<Map<String, String>> rows = new ArrayList<>();
+    for (Module module : modules) {
+      rows.add(Map.of("student_id", "99", "module_code", module.getCode()));
+    }
+    rows.add(Map.of("student_id", String.valueOf(testStudent.getId()), "module_code", testModule.getCode()));
+
+    MvcResult action = mockMvc.perform(MockMvcRequestBuilders.post("/students/studentDetail/registerAll").contentType(
+        MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(rows))).andReturn();
+    assertEquals(HttpStatus.OK.value(), action.getResponse().getStatus());
+
+    Map<String, Object> report = objectMapper.readValue(action.getResponse().getContentAsString(), Map.class);
+    List<Map<String, Object>> results = (List<Map<String, Object>>) report.get("rows");
+    assertEquals("NOT_FOUND", results.get(0).get("status"));
+    assertEquals("ALREADY_REGISTERED", results.get(results.size() - 1).get("status"));
+    assertEquals(1, testRegistrationRepository.count());
+  }
+
   /**
    * Tests that the controller class's computeAverage method (mapped to /students/studentDetail/computeAverage/{id})
    * correctly calculates and returns the average score of a student's grades.
@@ -172,7 +412,6 @@ public class StudentControllerTest {
     Grade testGradeTwo = new Grade(testModuleTwo, dummyScoreTwo);
     testStudent.addGrade(testGradeTwo);
     testStudentRepository.save(testStudent);
-    testGradeRepository.save(testGradeTwo);
 
     MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/students/studentDetail/computeAverage/" + testStudent.getId()).accept(
         MediaType.APPLICATION_JSON)).andReturn();
@@ -215,4 +454,46 @@ public class StudentControllerTest {
     Assertions.assertEquals(failedAction.getResponse().getStatus(), HttpStatus.NOT_FOUND.value());
   }
 
-}
+  /**
+   * Tests that the importStudents method (mapped to /students/import) loads the rows of a CSV document and reports
+   * the ones whose username is taken by a stored student
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @Test
+  void testImportStudents() throws Exception {
+    MvcResult action = mockMvc.perform(MockMvcRequestBuilders.post("/students/import").contentType("text/csv")
+        .content("id,first_name,last_name,username,email\n2,Jane,Doe,JaneDoe,janeDoe@gmail.com\n"
+            + "3,Jim,Doe,JohnDoe,jimDoe@gmail.com\n")).andReturn();
+    assertEquals(HttpStatus.OK.value(), action.getResponse().getStatus());
+    ImportReport report = objectMapper.readValue(action.getResponse().getContentAsString(), ImportReport.class);
+
+    assertEquals(1, report.imported());
+    assertEquals(List.of(new ImportReject(2, "3", Reason.DUPLICATE_USERNAME)), report.rejects());
+    assertTrue(testStudentRepository.existsById(2L));
+    assertFalse(testStudentRepository.existsById(3L));
+  }
+
+  /**
+   * Tests that the importStudents method responds with a conflict when its checkpoint was kept by a module import,
+   * and when a batch clashes with a row written concurrently, naming the problem in the Error-Message header
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @Test
+  void testImportStudentsConflict() throws Exception {
+    importService.importModules(new StringReader("EXMP0011,Example Course Two,false\n"), "intake");
+
+    MvcResult wrongKind = mockMvc.perform(MockMvcRequestBuilders.post("/students/import").param("checkpoint", "intake")
+        .contentType("text/csv").content("2,Jane,Doe,JaneDoe,janeDoe@gmail.com\n")).andReturn();
+    assertEquals(HttpStatus.CONFLICT.value(), wrongKind.getResponse().getStatus());
+    assertNotNull(wrongKind.getResponse().getHeader("Error-Message"));
+    assertFalse(testStudentRepository.existsById(2L));
+
+    doThrow(new DataIntegrityViolationException("Unique index or primary key violation"))
+        .when(importService).importStudents(any(), any());
+    MvcResult clash = mockMvc.perform(MockMvcRequestBuilders.post("/students/import")
+        .contentType("text/csv").content("2,Jane,Doe,JaneDoe,janeDoe@gmail.com\n")).andReturn();
+    assertEquals(HttpStatus.CONFLICT.value(), clash.getResponse().getStatus());
+    assertEquals("A row was written concurrently, please resume the import",
+        clash.getResponse().getHeader("Error-Message"));
+  }
+}
\ No newline at end of file
@@ -0,0 +1,107 @@
+package uk.ac.ucl.comp0010.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.ac.ucl.comp0010.dto.ModuleStatistics;
+
+/**
+ * The ModuleStatsTest class provides a set of unit tests for the ModuleStats class
+ */
+public class ModuleStatsTest {
+  private ModuleStats testStats;
+
+  @BeforeEach
+  public void setup(){
+    testStats = new ModuleStats("EXMPL00010");
+  }
+
+  /**
+   * Tests that new statistics have no grades, no score range and an average of NaN
+   */
+  @Test
+  public void testConstruction(){
+    ModuleStatistics statistics = testStats.toStatistics();
+    assertEquals("EXMPL00010", testStats.getModuleCode());
+    assertEquals(0, statistics.totalGrades());
+    assertTrue(Double.isNaN(statistics.average()));
+    assertNull(statistics.minimum());
+    assertNull(statistics.maximum());
+    assertEquals(0L, statistics.pieChart().get("0-40"));
+  }
+
+  /**
+   * Tests that addScore updates the count, sum, score range and the matching pie chart band
+   */
+  @Test
+  public void testAddScore(){
+    testStats.addScore(35);
+    testStats.addScore(45);
+    testStats.addScore(55);
+    testStats.addScore(65);
+    testStats.addScore(75);
+    testStats.addScore(100);
+
+    ModuleStatistics statistics = testStats.toStatistics();
+    assertEquals(6, testStats.getGradeCount());
+    assertEquals(375, testStats.getGradeTotal());
+    assertEquals(62.5, statistics.average());
+    assertEquals(35, statistics.minimum());
+    assertEquals(100, statistics.maximum());
+    assertEquals(Map.of("0-40", 1L, "40-50", 1L, "50-60", 1L, "60-70", 1L, "70-100", 2L),
+        statistics.pieChart());
+  }
+
+  /**
+   * Tests that removeScore only reports a stale score range when the removed score was the lowest or highest,
+   * and clears the range once the last score is removed
+   */
+  @Test
+  public void testRemoveScore(){
+    testStats.addScore(40);
+    testStats.addScore(50);
+    testStats.addScore(60);
+
+    assertFalse(testStats.removeScore(50));
+    assertEquals(0L, testStats.toStatistics().pieChart().get("50-60"));
+    assertTrue(testStats.removeScore(60));
+    testStats.setScoreRange(40, 40);
+    assertFalse(testStats.removeScore(40));
+
+    ModuleStatistics statistics = testStats.toStatistics();
+    assertEquals(0, statistics.totalGrades());
+    assertEquals(0, statistics.totalScore());
+    assertNull(statistics.minimum());
+    assertNull(statistics.maximum());
+  }
+
+  /**
+   * Tests that overwrite replaces every stored value with the given statistics
+   */
+  @Test
+  public void testOverwrite(){
+    ModuleStatistics statistics = new ModuleStatistics(2L, 110L, 45, 65, 0L, 1L, 0L, 1L, 0L);
+    testStats.addScore(90);
+    testStats.overwrite(statistics);
+    assertEquals(statistics, testStats.toStatistics());
+    assertEquals(statistics, new ModuleStats("EXMPL00010", statistics).toStatistics());
+  }
+
+  /**
+   * Tests that the revision goes up with every change to the scores and with every touch
+   */
+  @Test
+  public void testRevision(){
+    assertEquals(0, testStats.getRevision());
+    testStats.addScore(50);
+    testStats.touch();
+    assertEquals(2, testStats.getRevision());
+    testStats.removeScore(50);
+    assertTrue(testStats.getRevision() > 2);
+  }
+}
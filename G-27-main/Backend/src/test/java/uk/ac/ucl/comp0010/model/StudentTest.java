@@ -197,6 +197,57 @@ public class StudentTest {
     assertEquals(dummyStudent.computeAverage(), actualAverage, 0.0);
   }
 
+  /**
+   * Tests that the removeGrade method removes the grade from the grades field and takes its score off the
+   * running totals, and that removing a grade the student does not have changes nothing
+   */
+  @Test
+  public void testRemoveGrade(){
+    Grade otherGrade = new Grade(testModule, 40);
+    dummyStudent.addGrade(testGrade);
+    dummyStudent.addGrade(otherGrade);
+
+    dummyStudent.removeGrade(testGrade);
+    assertEquals(1, dummyStudent.getGradeList().size());
+    assertEquals(40, dummyStudent.getGradeTotal());
+    assertEquals(1, dummyStudent.getGradeCount());
+
+    dummyStudent.removeGrade(testGrade);
+    assertEquals(40, dummyStudent.getGradeTotal());
+    assertEquals(1, dummyStudent.getGradeCount());
+    assertEquals(40.0f, dummyStudent.computeAverage(), 0.0);
+  }
+
+  /**
+   * Tests that the updateGrade method changes the grade's score and adjusts the running total by the difference
+   */
+  @Test
+  public void testUpdateGrade(){
+    dummyStudent.addGrade(testGrade);
+    dummyStudent.updateGrade(testGrade, 50);
+    assertEquals(50, testGrade.getScore());
+    assertEquals(50, dummyStudent.getGradeTotal());
+    assertEquals(1, dummyStudent.getGradeCount());
+  }
+
+  /**
+   * Tests that the setGradeList method recomputes the running totals from the new grade list
+   */
+  @Test
+  public void testSetGradeListUpdatesTotals(){
+    dummyStudent.addGrade(testGrade);
+    List<Grade> newGradeList = new ArrayList<>();
+    newGradeList.add(new Grade(testModule, 50));
+    newGradeList.add(new Grade(testModule, 60));
+
+    dummyStudent.setGradeList(newGradeList);
+    assertEquals(110, dummyStudent.getGradeTotal());
+    assertEquals(2, dummyStudent.getGradeCount());
+
+    dummyStudent.setGradeTotals(10, 1);
+    assertEquals(10.0f, dummyStudent.computeAverage(), 0.0);
+  }
+
   /**
    * Tests that the ComputeAverage method correctly returns 0 if the student's gradeList is empty
    */
@@ -248,4 +299,49 @@ public class StudentTest {
     assertEquals(
             dummyStudent.getStudentRegistration().get(dummyStudent.getStudentRegistration().size() - 1).getModule(), testModule);
   }
+
+  /**
+   * Tests that isRegisteredFor and getGrade follow registrations and grades that are added and removed after the
+   * student's module index has been built, and after the lists are replaced
+   */
+  @Test
+  public void testModuleIndexStaysInSync() throws NoRegistrationException, NoGradeAvailableException {
+    Module otherModule = new Module("EXMPL00020", "Other Course Name", false);
+    assertEquals(false, dummyStudent.isRegisteredFor(testModule.getCode()));
+
+    Registration registration = dummyStudent.registerModule(testModule);
+    dummyStudent.registerModule(otherModule);
+    dummyStudent.addGrade(testGrade);
+    assertEquals(true, dummyStudent.isRegisteredFor(testModule.getCode()));
+    assertEquals(testGrade, dummyStudent.getGrade(new Module(testModule.getCode(), "Same code", false)));
+
+    dummyStudent.removeGrade(testGrade);
+    assertThrows(NoGradeAvailableException.class, () -> {dummyStudent.getGrade(testModule);});
+    dummyStudent.removeRegistration(registration);
+    assertEquals(false, dummyStudent.isRegisteredFor(testModule.getCode()));
+    assertEquals(true, dummyStudent.isRegisteredFor(otherModule.getCode()));
+
+    dummyStudent.setStudentRegistration(List.of(new Registration(testModule)));
+    dummyStudent.setGradeList(List.of(testGrade));
+    assertEquals(false, dummyStudent.isRegisteredFor(otherModule.getCode()));
+    assertEquals(testGrade, dummyStudent.getGrade(testModule));
+  }
+
+  /**
+   * Tests that getGrade returns the grade added last when a module has several grades, and the
+   * earlier grade again once the later one is removed
+   */
+  @Test
+  public void testModuleIndexWithDuplicateGrades() throws NoRegistrationException, NoGradeAvailableException {
+    Grade laterGrade = new Grade(testModule, 80);
+    dummyStudent.registerModule(testModule);
+    dummyStudent.addGrade(testGrade);
+    assertEquals(testGrade, dummyStudent.getGrade(testModule));
+
+    dummyStudent.addGrade(laterGrade);
+    assertEquals(laterGrade, dummyStudent.getGrade(testModule));
+
+    dummyStudent.removeGrade(laterGrade);
+    assertEquals(testGrade, dummyStudent.getGrade(testModule));
+  }
 }
\ No newline at end of file
@@ -0,0 +1,110 @@
+package uk.ac.ucl.comp0010.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import uk.ac.ucl.comp0010.model.Grade;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Student;
+
+/**
+ * The set of tests for the Hibernate second-level and query caches used by the repositories.
+ */
+@SpringBootTest
+public class SecondLevelCacheTest {
+
+  @Autowired
+  private StudentRepository testStudentRepository;
+
+  @Autowired
+  private ModuleRepository testModuleRepository;
+
+  @Autowired
+  private RegistrationRepository testRegistrationRepository;
+
+  @Autowired
+  private GradeRepository testGradeRepository;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  private Module testModule;
+  private Student testStudent;
+  private Statistics statistics;
+
+  /**
+   * Saves a student who is registered for a module and has a grade in it.
+   */
+  @BeforeEach
+  void setup() {
+    testModule = testModuleRepository.save(new Module("EXMP0010", "Example Course Name", true));
+    testStudent = new Student(1L, "John", "Doe", "JohnDoe", "johnDoe@gmail.com");
+    testStudent.registerModule(testModule);
+    testStudent.addGrade(new Grade(testModule, 60));
+    testStudent = testStudentRepository.save(testStudent);
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+  }
+
+  /**
+   * Returns the database to the pre-setup state (empty) to prevent tests from interfering with one another
+   */
+  @AfterEach
+  void tearDown() {
+    testRegistrationRepository.deleteAll();
+    testStudentRepository.deleteAll();
+    testGradeRepository.deleteAll();
+    testModuleRepository.deleteAll();
+  }
+
+  /**
+   * Tests that loading a student and a module by ID is served from the second-level cache without any SQL.
+   */
+  @Test
+  void testEntitiesAreCached() {
+    testStudentRepository.findById(testStudent.getId()).orElseThrow();
+    testModuleRepository.findById(testModule.getCode()).orElseThrow();
+
+    statistics.clear();
+    assertEquals("John", testStudentRepository.findById(testStudent.getId()).orElseThrow().getFirstName());
+    assertEquals("Example Course Name", testModuleRepository.findById(testModule.getCode()).orElseThrow().getName());
+    assertEquals(0, statistics.getPrepareStatementCount());
+    assertEquals(2, statistics.getSecondLevelCacheHitCount());
+  }
+
+  /**
+   * Tests that a repeated findByModuleAndStudent lookup is answered by the query cache until a grade is written,
+   * and that the cache statistics are published as metrics.
+   */
+  @Test
+  void testFindByModuleAndStudentIsQueryCached() {
+    testGradeRepository.findByModuleAndStudent(testModule, testStudent).orElseThrow();
+    testRegistrationRepository.findByModuleAndStudent(testModule, testStudent).orElseThrow();
+
+    statistics.clear();
+    assertEquals(60, testGradeRepository.findByModuleAndStudent(testModule, testStudent).orElseThrow().getScore());
+    testRegistrationRepository.findByModuleAndStudent(testModule, testStudent).orElseThrow();
+    assertEquals(2, statistics.getQueryCacheHitCount());
+    assertEquals(0, statistics.getPrepareStatementCount());
+
+    Grade grade = testGradeRepository.findByModuleAndStudent(testModule, testStudent).orElseThrow();
+    grade.setScore(75);
+    testGradeRepository.save(grade);
+    statistics.clear();
+    assertEquals(75, testGradeRepository.findByModuleAndStudent(testModule, testStudent).orElseThrow().getScore());
+    assertEquals(0, statistics.getQueryCacheHitCount());
+
+    assertTrue(meterRegistry.find("hibernate.cache.query.requests").functionCounters().size() > 0);
+  }
+}
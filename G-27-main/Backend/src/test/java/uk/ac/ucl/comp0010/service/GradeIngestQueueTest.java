@@ -0,0 +1,169 @@
+package uk.ac.ucl.comp0010.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import java.util.OptionalLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import uk.ac.ucl.comp0010.dto.GradeTicket;
+import uk.ac.ucl.comp0010.dto.GradeTicket.Status;
+import uk.ac.ucl.comp0010.dto.GradeUpload;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.repository.GradeRepository;
+import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.repository.ModuleStatsRepository;
+import uk.ac.ucl.comp0010.repository.RegistrationRepository;
+import uk.ac.ucl.comp0010.repository.StudentRepository;
+
+/**
+ * The set of tests for the GradeIngestQueue class and the asynchronous grade submission endpoints.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class GradeIngestQueueTest {
+  private static final long TIMEOUT_MILLIS = 5000;
+
+  @Autowired
+  private GradeService gradeService;
+
+  @Autowired
+  private StudentRepository testStudentRepository;
+
+  @Autowired
+  private ModuleRepository testModuleRepository;
+
+  @Autowired
+  private RegistrationRepository testRegistrationRepository;
+
+  @Autowired
+  private GradeRepository testGradeRepository;
+
+  @Autowired
+  private ModuleStatsRepository testModuleStatsRepository;
+
+  @Autowired
+  private CacheManager cacheManager;
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  /**
+   * Saves a student registered for a module, and a second student who is not registered for it.
+   */
+  @BeforeEach
+  void setup() {
+    Module testModule = testModuleRepository.save(new Module("EXMP0010", "Example Course Name", true));
+    Student registered = new Student(1L, "John", "Doe", "JohnDoe", "johnDoe@gmail.com");
+    registered.registerModule(testModule);
+    testStudentRepository.save(registered);
+    testStudentRepository.save(new Student(2L, "Jane", "Doe", "JaneDoe", "janeDoe@gmail.com"));
+  }
+
+  /**
+   * Returns the database and the caches to the pre-setup state (empty) to prevent tests from interfering with
+   * one another
+   */
+  @AfterEach
+  void tearDown() {
+    testRegistrationRepository.deleteAll();
+    testStudentRepository.deleteAll();
+    testGradeRepository.deleteAll();
+    testModuleRepository.deleteAll();
+    testModuleStatsRepository.deleteAll();
+    cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+  }
+
+  /**
+   * Tests that a submitted grade is accepted with a ticket, is recorded in the background, and that its ticket
+   * reports the outcome, and that incomplete submissions and unknown tickets are refused
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @Test
+  void testSubmitGrade() throws Exception {
+    MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/grades/submit")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(Map.of("student_id", 1, "module_code", "EXMP0010", "score", 80))))
+        .andReturn();
+    assertEquals(HttpStatus.ACCEPTED.value(), result.getResponse().getStatus());
+    GradeTicket ticket = objectMapper.readValue(result.getResponse().getContentAsString(), GradeTicket.class);
+    assertEquals(Status.QUEUED, ticket.status());
+    String location = result.getResponse().getHeader(HttpHeaders.LOCATION);
+    assertEquals("/grades/submissions/" + ticket.ticket(), location);
+
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    GradeTicket state = ticket;
+    while (state.status() == Status.QUEUED && System.currentTimeMillis() < deadline) {
+      Thread.sleep(20);
+      MvcResult poll = mockMvc.perform(MockMvcRequestBuilders.get(location)).andReturn();
+      assertEquals(HttpStatus.OK.value(), poll.getResponse().getStatus());
+      state = objectMapper.readValue(poll.getResponse().getContentAsString(), GradeTicket.class);
+    }
+    assertEquals(Status.CREATED, state.status());
+    assertEquals(80, testGradeRepository.findByModuleCode("EXMP0010").get(0).getScore());
+
+    MvcResult incomplete = mockMvc.perform(MockMvcRequestBuilders.post("/grades/submit")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(Map.of("student_id", 1, "module_code", "EXMP0010"))))
+        .andReturn();
+    assertEquals(HttpStatus.BAD_REQUEST.value(), incomplete.getResponse().getStatus());
+
+    MvcResult unknown = mockMvc.perform(MockMvcRequestBuilders.get("/grades/submissions/{ticket}", ticket.ticket() + 1000))
+        .andReturn();
+    assertEquals(HttpStatus.NOT_FOUND.value(), unknown.getResponse().getStatus());
+  }
+
+  /**
+   * Tests that a full queue turns submissions away, and that submissions for the same student and module that
+   * are written in one batch are coalesced so only the latest is recorded
+   * @throws Exception thrown if the wait for the writer is interrupted - should never be thrown in this particular case
+   */
+  @Test
+  void testCoalescesAndRejectsWhenFull() throws Exception {
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    GradeIngestQueue queue = new GradeIngestQueue(gradeService, 3, 10,
+        "maximumSize=100,expireAfterWrite=1m", meterRegistry);
+    long first = queue.submit(new GradeUpload(1L, "EXMP0010", 60)).getAsLong();
+    long second = queue.submit(new GradeUpload(1L, "EXMP0010", 75)).getAsLong();
+    long unregistered = queue.submit(new GradeUpload(2L, "EXMP0010", 50)).getAsLong();
+    assertEquals(OptionalLong.empty(), queue.submit(new GradeUpload(1L, "EXMP0010", 90)));
+    assertEquals(1, meterRegistry.get("grades.ingest.rejected").counter().count());
+    assertEquals(3, meterRegistry.get("grades.ingest.queue.size").gauge().value());
+
+    queue.start();
+    try {
+      long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+      while (queue.status(unregistered).get().status() == Status.QUEUED
+          && System.currentTimeMillis() < deadline) {
+        Thread.sleep(20);
+      }
+    } finally {
+      queue.stop();
+    }
+
+    assertEquals(Status.SUPERSEDED, queue.status(first).get().status());
+    assertEquals(Status.CREATED, queue.status(second).get().status());
+    assertEquals(Status.NOT_REGISTERED, queue.status(unregistered).get().status());
+    assertEquals(75, testGradeRepository.findByModuleCode("EXMP0010").get(0).getScore());
+    assertTrue(queue.submit(new GradeUpload(1L, "EXMP0010", 90)).isEmpty());
+  }
+}
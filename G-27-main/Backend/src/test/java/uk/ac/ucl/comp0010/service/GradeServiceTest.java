@@ -0,0 +1,233 @@
+package uk.ac.ucl.comp0010.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import uk.ac.ucl.comp0010.dto.GradeUpload;
+import uk.ac.ucl.comp0010.dto.GradeUploadResult;
+import uk.ac.ucl.comp0010.dto.GradeUploadResult.Status;
+import uk.ac.ucl.comp0010.dto.RecordedGrade;
+import uk.ac.ucl.comp0010.exceptions.NoRegistrationException;
+import uk.ac.ucl.comp0010.model.Grade;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.ModuleStats;
+import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.repository.GradeRepository;
+import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.repository.ModuleStatsRepository;
+import uk.ac.ucl.comp0010.repository.RegistrationRepository;
+import uk.ac.ucl.comp0010.repository.StudentRepository;
+
+/**
+ * The set of tests for the GradeService class, which records and removes students' grades.
+ */
+@SpringBootTest
+public class GradeServiceTest {
+
+  @Autowired
+  private GradeService gradeService;
+
+  @Autowired
+  private StudentRepository testStudentRepository;
+
+  @Autowired
+  private ModuleRepository testModuleRepository;
+
+  @Autowired
+  private RegistrationRepository testRegistrationRepository;
+
+  @Autowired
+  private GradeRepository testGradeRepository;
+
+  @Autowired
+  private ModuleStatsRepository testModuleStatsRepository;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private CacheManager cacheManager;
+
+  private Student testStudent;
+  private Module testModule;
+
+  /**
+   * Saves a student registered for two modules, with a grade in the other one.
+   */
+  @BeforeEach
+  void setup() {
+    testModule = testModuleRepository.save(new Module("EXMP0010", "Example Course Name", true));
+    Module otherModule = testModuleRepository.save(new Module("EXMP0011", "Example Course Two", true));
+    testModuleRepository.save(new Module("EXMP0012", "Example Course Three", true));
+    testStudent = new Student(1L, "John", "Doe", "JohnDoe", "johnDoe@gmail.com");
+    testStudent.registerModule(testModule);
+    testStudent.registerModule(otherModule);
+    testStudent.addGrade(new Grade(otherModule, 70));
+    testStudent = testStudentRepository.save(testStudent);
+  }
+
+  /**
+   * Returns the database to the pre-setup state (empty) to prevent tests from interfering with one another
+   */
+  @AfterEach
+  void tearDown() {
+    testRegistrationRepository.deleteAll();
+    testStudentRepository.deleteAll();
+    testGradeRepository.deleteAll();
+    testModuleRepository.deleteAll();
+    testModuleStatsRepository.deleteAll();
+    cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+  }
+
+  /**
+   * Tests that addGrade records and then updates a grade without initialising the student's registrations or
+   * grades, keeping the same grade ID and the student's running totals in step
+   */
+  @Test
+  void testAddGradeLoadsNoCollections() throws NoRegistrationException {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    RecordedGrade created = gradeService.addGrade(testStudent.getId(), testModule.getCode(), 50);
+    RecordedGrade updated = gradeService.addGrade(testStudent.getId(), testModule.getCode(), 80);
+    assertEquals(0, statistics.getCollectionFetchCount());
+
+    assertTrue(created.created());
+    assertFalse(updated.created());
+    assertEquals(created.grade().getId(), updated.grade().getId());
+    assertEquals(80, updated.grade().getScore());
+    assertEquals(2, testGradeRepository.count());
+    Student stored = testStudentRepository.findById(testStudent.getId()).orElseThrow();
+    assertEquals(150, stored.getGradeTotal());
+    assertEquals(2, stored.getGradeCount());
+  }
+
+  /**
+   * Tests that addGrade tells a missing student or module apart from a student who is not registered
+   */
+  @Test
+  void testAddGradeRejections() {
+    assertThrows(NoRegistrationException.class,
+        () -> gradeService.addGrade(testStudent.getId(), "EXMP0012", 50));
+    assertThrows(NoSuchElementException.class,
+        () -> gradeService.addGrade(99L, testModule.getCode(), 50));
+    assertThrows(NoSuchElementException.class,
+        () -> gradeService.addGrade(testStudent.getId(), "MISSING", 50));
+  }
+
+  /**
+   * Tests that grades recorded for the same student at the same time all count towards the student's running
+   * totals, rather than one transaction overwriting the totals written by another
+   * @throws Exception thrown if a grade cannot be recorded - should never be thrown in this particular case
+   */
+  @Test
+  void testConcurrentGradesKeepTotals() throws Exception {
+    int writers = 8;
+    List<String> codes = new ArrayList<>();
+    for (int i = 0; i < writers; i++) {
+      Module module = testModuleRepository.save(new Module("CONC000" + i, "Concurrent Course " + i, false));
+      testRegistrationRepository.save(testStudent.registerModule(module));
+      codes.add(module.getCode());
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(writers);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<RecordedGrade>> results = new ArrayList<>();
+    for (String code : codes) {
+      results.add(executor.submit(() -> {
+        start.await();
+        return gradeService.addGrade(testStudent.getId(), code, 10);
+      }));
+    }
+    start.countDown();
+    for (Future<RecordedGrade> result : results) {
+      assertTrue(result.get().created());
+    }
+    executor.shutdown();
+
+    Student stored = testStudentRepository.findById(testStudent.getId()).orElseThrow();
+    assertEquals(70 + 10 * writers, stored.getGradeTotal());
+    assertEquals(1 + writers, stored.getGradeCount());
+  }
+
+  /**
+   * Tests that grades recorded for the same module at the same time, starting before the module has any
+   * materialised statistics, all succeed and all count towards the statistics, with one revision per grade on
+   * top of the one for creating the statistics
+   * @throws Exception thrown if a grade cannot be recorded - should never be thrown in this particular case
+   */
+  @Test
+  void testConcurrentGradesKeepModuleStats() throws Exception {
+    int writers = 8;
+    Module module = testModuleRepository.save(new Module("CONC0100", "Concurrent Course", false));
+    for (long id = 2; id < 2 + writers; id++) {
+      Student student = new Student(id, "John" + id, "Doe", "JohnDoe" + id, "john" + id + "@gmail.com");
+      student.registerModule(module);
+      testStudentRepository.save(student);
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(writers);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<RecordedGrade>> results = new ArrayList<>();
+    for (long id = 2; id < 2 + writers; id++) {
+      long studentId = id;
+      results.add(executor.submit(() -> {
+        start.await();
+        return gradeService.addGrade(studentId, module.getCode(), 45);
+      }));
+    }
+    start.countDown();
+    for (Future<RecordedGrade> result : results) {
+      assertTrue(result.get().created());
+    }
+    executor.shutdown();
+
+    ModuleStats stats = testModuleStatsRepository.findById(module.getCode()).orElseThrow();
+    assertEquals(writers, stats.getGradeCount());
+    assertEquals(45L * writers, stats.getGradeTotal());
+    assertEquals((long) writers, stats.toStatistics().pieChart().get("40-50"));
+    assertEquals(writers + 1, stats.getRevision());
+  }
+
+  /**
+   * Tests that addGrades checks an upload naming more modules than fit in one IN list against the registrations
+   * and grades of every module, including those bound in the second list
+   */
+  @Test
+  void testAddGradesChunksModuleCodes() {
+    List<Module> modules = new ArrayList<>();
+    for (int i = 0; i <= Batches.IN_LIST_SIZE; i++) {
+      modules.add(new Module(String.format("CHNK%04d", i), "Chunked Course " + i, false));
+    }
+    testModuleRepository.saveAll(modules);
+    Module last = modules.get(modules.size() - 1);
+    testStudent.registerModule(last);
+    testStudentRepository.save(testStudent);
+
+    List<GradeUpload> uploads = new ArrayList<>();
+    for (Module module : modules) {
+      uploads.add(new GradeUpload(testStudent.getId(), module.getCode(), 60));
+    }
+    List<GradeUploadResult> rows = gradeService.addGrades(uploads).rows();
+    assertEquals(Status.NOT_REGISTERED, rows.get(0).status());
+    assertEquals(Status.CREATED, rows.get(rows.size() - 1).status());
+    assertEquals(60, testGradeRepository.findByModuleCode(last.getCode()).get(0).getScore());
+  }
+}
\ No newline at end of file
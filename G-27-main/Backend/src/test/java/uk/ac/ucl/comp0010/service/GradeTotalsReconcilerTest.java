@@ -0,0 +1,114 @@
+package uk.ac.ucl.comp0010.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import uk.ac.ucl.comp0010.dto.GradeTotalsDrift;
+import uk.ac.ucl.comp0010.model.Grade;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.ModuleStats;
+import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.repository.GradeRepository;
+import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.repository.ModuleStatsRepository;
+import uk.ac.ucl.comp0010.repository.RegistrationRepository;
+import uk.ac.ucl.comp0010.repository.StudentRepository;
+
+/**
+ * The set of tests for the GradeTotalsReconciler class, which repairs the grade totals stored on each student.
+ */
+@SpringBootTest
+public class GradeTotalsReconcilerTest {
+
+  @Autowired
+  private GradeTotalsReconciler reconciler;
+
+  @Autowired
+  private StudentRepository testStudentRepository;
+
+  @Autowired
+  private ModuleRepository testModuleRepository;
+
+  @Autowired
+  private RegistrationRepository testRegistrationRepository;
+
+  @Autowired
+  private GradeRepository testGradeRepository;
+
+  @Autowired
+  private ModuleStatsRepository testModuleStatsRepository;
+
+  private Student testStudent;
+
+  /**
+   * Saves a student with two grades, then overwrites the stored totals so that they have drifted.
+   */
+  @BeforeEach
+  void setup() {
+    Module testModule = testModuleRepository.save(new Module("EXMP0010", "Example Course Name", true));
+    Module testModuleTwo = testModuleRepository.save(new Module("EXMP0011", "Example Course Two", true));
+    testStudent = new Student(1L, "John", "Doe", "JohnDoe", "johnDoe@gmail.com");
+    testStudent.registerModule(testModule);
+    testStudent.registerModule(testModuleTwo);
+    testStudent.addGrade(new Grade(testModule, 60));
+    testStudent.addGrade(new Grade(testModuleTwo, 70));
+    testStudent.setGradeTotals(5, 3);
+    testStudent = testStudentRepository.save(testStudent);
+  }
+
+  /**
+   * Returns the database to the pre-setup state (empty) to prevent tests from interfering with one another
+   */
+  @AfterEach
+  void tearDown() {
+    testRegistrationRepository.deleteAll();
+    testStudentRepository.deleteAll();
+    testGradeRepository.deleteAll();
+    testModuleRepository.deleteAll();
+    testModuleStatsRepository.deleteAll();
+  }
+
+  /**
+   * Tests that reconcile reports a student whose totals have drifted, repairs the stored totals, and reports
+   * nothing when run again.
+   */
+  @Test
+  void testReconcile() {
+    List<GradeTotalsDrift> drifts = reconciler.reconcile();
+    assertEquals(1, drifts.size());
+    assertEquals(new GradeTotalsDrift(testStudent.getId(), 5, 3, 130, 2), drifts.getFirst());
+
+    Student repaired = testStudentRepository.findById(testStudent.getId()).orElseThrow();
+    assertEquals(130, repaired.getGradeTotal());
+    assertEquals(2, repaired.getGradeCount());
+    assertEquals(65.0f, repaired.computeAverage(), 0.0);
+
+    assertTrue(reconciler.reconcile().isEmpty());
+  }
+
+  /**
+   * Tests that reconcileModuleStats repairs materialised statistics that no longer match the grades, and leaves
+   * statistics that do match alone.
+   */
+  @Test
+  void testReconcileModuleStats() {
+    ModuleStats drifted = new ModuleStats("EXMP0010");
+    drifted.addScore(10);
+    testModuleStatsRepository.save(drifted);
+    ModuleStats correct = new ModuleStats("EXMP0011");
+    correct.addScore(70);
+    testModuleStatsRepository.save(correct);
+
+    assertEquals(List.of("EXMP0010"), reconciler.reconcileModuleStats());
+    ModuleStats repaired = testModuleStatsRepository.findById("EXMP0010").orElseThrow();
+    assertEquals(1, repaired.getGradeCount());
+    assertEquals(60, repaired.getGradeTotal());
+    assertTrue(reconciler.reconcileModuleStats().isEmpty());
+  }
+}
@@ -0,0 +1,160 @@
+package uk.ac.ucl.comp0010.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import uk.ac.ucl.comp0010.dto.ImportReject;
+import uk.ac.ucl.comp0010.dto.ImportReject.Reason;
+import uk.ac.ucl.comp0010.dto.ImportReport;
+import uk.ac.ucl.comp0010.model.ImportCheckpoint;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.repository.ImportCheckpointRepository;
+import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.repository.StudentRepository;
+
+/**
+ * The set of tests for the ImportService class, which loads students and modules in bulk from CSV. The batch size is lowered to two rows so that every import is written in several batches.
+ */
+@SpringBootTest(properties = "import.batch-size=2")
+public class ImportServiceTest {
+  private static final String STUDENTS = """
+      id,first_name,last_name,username,email
+      2,Jane,Doe,JaneDoe,janeDoe@gmail.com
+      3,Jim,Doe,JimDoe,jimDoe@gmail.com
+      1,Johnny,Doe,Johnny,johnny@gmail.com
+      4,Jack,Doe,JaneDoe,jack@gmail.com
+      5,Jill,Doe,JillDoe,johnDoe@gmail.com
+      6,Joe,Doe,JoeDoe
+
+      7,Joan,Doe,JoanDoe,joanDoe@gmail.com
+      """;
+
+  @Autowired
+  private ImportService importService;
+
+  @Autowired
+  private StudentRepository testStudentRepository;
+
+  @Autowired
+  private ModuleRepository testModuleRepository;
+
+  @Autowired
+  private ImportCheckpointRepository testCheckpointRepository;
+
+  @Autowired
+  private CacheManager cacheManager;
+
+  /**
+   * Saves a student and a module whose keys the imports clash with.
+   */
+  @BeforeEach
+  void setup() {
+    testStudentRepository.save(new Student(1L, "John", "Doe", "JohnDoe", "johnDoe@gmail.com"));
+    testModuleRepository.save(new Module("EXMP0010", "Example Course Name", true));
+  }
+
+  /**
+   * Returns the database and the caches to the pre-setup state (empty) to prevent tests from interfering with
+   * one another
+   */
+  @AfterEach
+  void tearDown() {
+    testStudentRepository.deleteAll();
+    testModuleRepository.deleteAll();
+    testCheckpointRepository.deleteAll();
+    cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+  }
+
+  /**
+   * Tests that a student import loads the valid rows in batches and reports every row whose ID, username or
+   * email is taken, either by a stored student or by an earlier row, and every row that cannot be parsed
+   * @throws Exception thrown in the case of an invalid reader - should never be thrown in this particular case
+   */
+  @Test
+  void testImportStudents() throws Exception {
+    ImportReport report = importService.importStudents(new StringReader(STUDENTS), null);
+
+    assertEquals(3, report.imported());
+    assertEquals(4, report.rejected());
+    assertEquals(0, report.skipped());
+    assertEquals(7, report.checkpoint());
+    assertEquals(2, report.batches());
+    assertTrue(report.rowsPerSecond() > 0);
+    assertEquals(List.of(new ImportReject(3, "1", Reason.DUPLICATE_KEY),
+        new ImportReject(4, "4", Reason.DUPLICATE_USERNAME),
+        new ImportReject(5, "5", Reason.DUPLICATE_EMAIL),
+        new ImportReject(6, "6", Reason.INVALID)), report.rejects());
+    assertEquals(1L, report.rejectsByReason().get(Reason.INVALID));
+
+    assertEquals(4, testStudentRepository.count());
+    assertEquals("JoanDoe", testStudentRepository.findSummaryById(7L).get().username());
+    assertEquals("John", testStudentRepository.findSummaryById(1L).get().firstName());
+  }
+
+  /**
+   * Tests that a module import loads the valid rows and rejects a taken code and an mnc that is not a boolean
+   * @throws Exception thrown in the case of an invalid reader - should never be thrown in this particular case
+   */
+  @Test
+  void testImportModules() throws Exception {
+    ImportReport report = importService.importModules(new StringReader("code,name,mnc\nEXMP0011,Example Course Two,false\n"
+        + "EXMP0010,Clash,true\nEXMP0012,Example Course Three,maybe\nEXMP0013,Example Course Four,TRUE\n"), null);
+
+    assertEquals(2, report.imported());
+    assertEquals(List.of(new ImportReject(2, "EXMP0010", Reason.DUPLICATE_KEY),
+        new ImportReject(3, "EXMP0012", Reason.INVALID)), report.rejects());
+    assertTrue(testModuleRepository.findById("EXMP0013").get().getMnc());
+    assertEquals("Example Course Name", testModuleRepository.findById("EXMP0010").get().getName());
+    assertFalse(testModuleRepository.existsById("EXMP0012"));
+  }
+
+  /**
+   * Tests that an import under a checkpoint skips the rows a previous run committed, so a later row that only
+   * clashed with a skipped one is loaded, moves the checkpoint to the end of the file, and that sending the file
+   * again does nothing
+   * @throws Exception thrown in the case of an invalid reader - should never be thrown in this particular case
+   */
+  @Test
+  void testImportResumesFromCheckpoint() throws Exception {
+    testCheckpointRepository.save(new ImportCheckpoint("intake", "students"));
+    testCheckpointRepository.advance("intake", 2);
+
+    ImportReport report = importService.importStudents(new StringReader(STUDENTS), "intake");
+    assertEquals(2, report.skipped());
+    assertEquals(2, report.imported());
+    assertEquals(3, report.rejected());
+    assertEquals(7, testCheckpointRepository.findById("intake").get().getRowsCommitted());
+    assertFalse(testStudentRepository.existsById(2L));
+    assertTrue(testStudentRepository.existsById(4L));
+    assertTrue(testStudentRepository.existsById(7L));
+
+    report = importService.importStudents(new StringReader(STUDENTS), "intake");
+    assertEquals(7, report.skipped());
+    assertEquals(0, report.imported());
+    assertEquals(0, report.rejected());
+  }
+
+  /**
+   * Tests that a checkpoint kept by a student import cannot be used to import modules
+   * @throws Exception thrown in the case of an invalid reader - should never be thrown in this particular case
+   */
+  @Test
+  void testCheckpointBelongsToOneKind() throws Exception {
+    importService.importStudents(new StringReader(STUDENTS), "intake");
+
+    assertThrows(IllegalStateException.class,
+        () -> importService.importModules(new StringReader("EXMP0011,Example Course Two,false\n"), "intake"));
+    assertFalse(testModuleRepository.existsById("EXMP0011"));
+  }
+}
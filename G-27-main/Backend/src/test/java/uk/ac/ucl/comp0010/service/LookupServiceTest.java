@@ -0,0 +1,125 @@
+package uk.ac.ucl.comp0010.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import uk.ac.ucl.comp0010.config.CacheConfiguration;
+import uk.ac.ucl.comp0010.model.Module;
+import uk.ac.ucl.comp0010.model.Student;
+import uk.ac.ucl.comp0010.repository.ModuleRepository;
+import uk.ac.ucl.comp0010.repository.StudentRepository;
+
+/**
+ * The set of tests for the LookupService class, which caches modules and students' personal details.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class LookupServiceTest {
+
+  @Autowired
+  private LookupService lookupService;
+
+  @Autowired
+  private ModuleRepository testModuleRepository;
+
+  @Autowired
+  private StudentRepository testStudentRepository;
+
+  @Autowired
+  private CacheManager cacheManager;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  /**
+   * Saves a module and a student to look up.
+   */
+  @BeforeEach
+  void setup() {
+    testModuleRepository.save(new Module("EXMP0010", "Example Course Name", true));
+    testStudentRepository.save(new Student(1L, "John", "Doe", "JohnDoe", "johnDoe@gmail.com"));
+  }
+
+  /**
+   * Returns the database and the caches to the pre-setup state (empty) to prevent tests from interfering with
+   * one another
+   */
+  @AfterEach
+  void tearDown() {
+    testStudentRepository.deleteAll();
+    testModuleRepository.deleteAll();
+    cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+  }
+
+  /**
+   * Tests that a second lookup of a module is served from the cache, that the hits and misses are published as
+   * metrics, and that an unknown code is not cached.
+   */
+  @Test
+  void testGetModuleIsCached() {
+    double hits = cacheGets("hit");
+    double misses = cacheGets("miss");
+
+    assertEquals("Example Course Name", lookupService.getModule("EXMP0010").getName());
+    testModuleRepository.save(new Module("EXMP0010", "Renamed Directly", true));
+    assertEquals("Example Course Name", lookupService.getModule("EXMP0010").getName());
+    assertEquals(hits + 1, cacheGets("hit"));
+    assertEquals(misses + 1, cacheGets("miss"));
+
+    lookupService.evictModule("EXMP0010");
+    assertEquals("Renamed Directly", lookupService.getModule("EXMP0010").getName());
+    assertThrows(NoSuchElementException.class, () -> lookupService.getModule("MISSING"));
+    assertEquals(null, cacheManager.getCache(CacheConfiguration.MODULES).get("MISSING"));
+  }
+
+  /**
+   * Tests that saving a student or a module through the Spring Data REST endpoints evicts the cached copy. The
+   * controllers map /students/{id} and /modules/{id}, so POST is the write that reaches Spring Data REST.
+   * @throws Exception thrown in the case of an invalid MockMvc request - should never be thrown in this particular case
+   */
+  @Test
+  void testRestWritesEvict() throws Exception {
+    assertEquals("John", lookupService.getStudentSummary(1L).firstName());
+    assertEquals("Example Course Name", lookupService.getModule("EXMP0010").getName());
+
+    Map<String, Object> student = Map.of("id", 1, "firstName", "Johnny", "lastName", "Doe",
+        "username", "JohnDoe", "email", "johnDoe@gmail.com");
+    MvcResult studentUpdate = mockMvc.perform(MockMvcRequestBuilders.post("/students").contentType(
+        MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(student))).andReturn();
+    assertEquals(HttpStatus.CREATED.value(), studentUpdate.getResponse().getStatus());
+    Map<String, Object> module = Map.of("code", "EXMP0010", "name", "Renamed Course", "mnc", true);
+    MvcResult moduleUpdate = mockMvc.perform(MockMvcRequestBuilders.post("/modules").contentType(
+        MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(module))).andReturn();
+    assertEquals(HttpStatus.CREATED.value(), moduleUpdate.getResponse().getStatus());
+
+    assertEquals("Johnny", lookupService.getStudentSummary(1L).firstName());
+    assertEquals("Renamed Course", lookupService.getModule("EXMP0010").getName());
+  }
+
+  private double cacheGets(String result) {
+    return meterRegistry.get("cache.gets").tag("cache", CacheConfiguration.MODULES).tag("result", result)
+        .functionCounter().count();
+  }
+}
@@ -10,6 +10,7 @@ import {
   Alert,
 } from "@mui/material";
 import { API_ENDPOINT } from "../config";
+import { fetchAllPages } from "../paging";
 
 function AddGrade(props) {
   const [grade, setGrade] = React.useState({});
@@ -19,19 +20,17 @@ function AddGrade(props) {
 
   React.useEffect(() => {
     setError(null);
-    axios
-      .get(`${API_ENDPOINT}/students`)
-      .then((response) => {
-        setStudents(response.data._embedded.students);
+    fetchAllPages("/students/view")
+      .then((students) => {
+        setStudents(students);
       })
       .catch((error) => {
         setError(error.message);
       });
 
-    axios
-      .get(`${API_ENDPOINT}/modules`)
-      .then((response) => {
-        setModules(response.data._embedded.modules);
+    fetchAllPages("/modules/view")
+      .then((modules) => {
+        setModules(modules);
       })
       .catch((error) => {
         setError(error.message);
@@ -5,8 +5,11 @@ import App from "../App";
 import { API_ENDPOINT } from "../config";
 import AddGrade from "./AddGrade";
 
+const PAGE_SIZE = 50;
+
 function Grades() {
   const [grades, setGrades] = React.useState([]);
+  const [nextCursor, setNextCursor] = React.useState(null);
   const [error, setError] = React.useState();
   const [studentFilter, setStudentFilter] = React.useState("");
   const [moduleFilter, setModuleFilter] = React.useState("");
@@ -18,11 +21,25 @@ function Grades() {
     updateGrades();
   }, []);
 
+  // Each page already holds the student and module names, so the list needs one request per page
   function updateGrades() {
     axios
-      .get(`${API_ENDPOINT}/grades`)
+      .get(`${API_ENDPOINT}/grades/view`, { params: { size: PAGE_SIZE } })
+      .then((response) => {
+        setGrades(response.data.content);
+        setNextCursor(response.data.nextCursor);
+      })
+      .catch((response) => {
+        setError(response.message);
+      });
+  }
+
+  function loadMoreGrades() {
+    axios
+      .get(`${API_ENDPOINT}/grades/view`, { params: { size: PAGE_SIZE, after: nextCursor } })
       .then((response) => {
-        setGrades(response.data._embedded.grades);
+        setGrades((loaded) => [...loaded, ...response.data.content]);
+        setNextCursor(response.data.nextCursor);
       })
       .catch((response) => {
         setError(response.message);
@@ -46,64 +63,25 @@ function Grades() {
       })
   }
   
-  const filteredGrades = grades.filter((grade) => {
-    const matchesStudentFilter = (student) =>
-      student &&
-      (String(student.id).includes(studentFilter) ||
-        `${student.firstName} ${student.lastName}`
-          .toLowerCase()
-          .includes(studentFilter.toLowerCase()));
-
-    const matchesModuleFilter = (module) =>
-      module &&
-      (String(module.code).toLowerCase().includes(moduleFilter.toLowerCase()) ||
-        module.name.toLowerCase().includes(moduleFilter.toLowerCase()));
-
-    const studentRequest = axios.get(grade._links.student.href).then((res) => res.data);
-    const moduleRequest = axios.get(grade._links.module.href).then((res) => res.data);
-
-    return Promise.all([studentRequest, moduleRequest]).then(([student, module]) =>
-      matchesStudentFilter(student) && matchesModuleFilter(module)
-    );
-  });
+  const filteredGrades = grades.filter((grade) =>
+    (String(grade.studentId).includes(studentFilter) ||
+      `${grade.firstName} ${grade.lastName}`
+        .toLowerCase()
+        .includes(studentFilter.toLowerCase())) &&
+    (grade.moduleCode.toLowerCase().includes(moduleFilter.toLowerCase()) ||
+      grade.moduleName.toLowerCase().includes(moduleFilter.toLowerCase()))
+  );
   
   function GradeRow(props) {
-    const { grade, studentFilter, moduleFilter } = props;
-    const [student, setStudent] = React.useState();
-    const [module, setModule] = React.useState();
-
-    React.useEffect(() => {
-      axios
-        .get(grade._links.module.href)
-        .then((response) => setModule(response.data));
-
-      axios
-        .get(grade._links.student.href)
-        .then((response) => setStudent(response.data));
-    }, [grade]);
-    
-    const matchesFilter = //This is a bool which checks if it passes the checks
-      (studentFilter
-        ? (
-            String(student.id).includes(studentFilter) || 
-            `${student?.firstName} ${student?.lastName}`.toLowerCase().includes(studentFilter.toLowerCase())
-          )
-        : true) &&
-      (moduleFilter
-        ? (
-            String(module.code).toLowerCase().includes(moduleFilter.toLowerCase()) || 
-            module.name.toLowerCase().includes(moduleFilter.toLowerCase())
-          )
-        : true);
-    if (!matchesFilter) return null;
+    const { grade } = props;
       
     return (
       <TableRow key={grade.id}>
         <TableCell>
-          {student ? `${student.firstName} ${student.lastName} (${student.id})` : "Loading..."}
+          {`${grade.firstName} ${grade.lastName} (${grade.studentId})`}
         </TableCell>
         <TableCell>
-          {module ? `${module.code} ${module.name}` : "Loading..."}
+          {`${grade.moduleCode} ${grade.moduleName}`}
         </TableCell>
         <TableCell>{grade.score}</TableCell>
         <TableCell>
@@ -153,13 +131,18 @@ function Grades() {
               </TableRow>
             </TableHead>
             <TableBody>
-              {grades.map((grade) => (
+              {filteredGrades.map((grade) => (
                 <GradeRow key={grade.id} grade={grade} />
               ))}
             </TableBody>
           </Table>
         </TableContainer>
       )}
+      {nextCursor !== null && (
+        <Button onClick={loadMoreGrades} sx={{ marginTop: "10px" }}>
+          Load More Grades
+        </Button>
+      )}
       <br />
       <br />
       <AddGrade update={updateGrades} />
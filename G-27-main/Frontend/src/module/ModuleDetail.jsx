@@ -262,7 +262,7 @@ function ModuleDetail() {
             </Grid>
             </Grid>
             {students.map((s) => {
-            const hasGradeWithModuleCode = s.gradeList.some(grade => grade.module.code === module?.code);
+            const hasGradeWithModuleCode = s.score !== null;
             const matchesFilter = //This is a bool which checks if it passes the checks
                 (nameFilter
                 ? (
@@ -290,8 +290,7 @@ function ModuleDetail() {
                       )
                     : true);
             if (!matchesFilter) return null;
-            const grade = s.gradeList.find(grade => grade.module.code === module?.code);
-            const gradeValue = grade ? grade.score : 'Not Graded';
+            const gradeValue = s.score !== null ? s.score : 'Not Graded';
             return (
                 <Grid container key={s.id} style={{ padding: "10px 0" }} justifyContent="center">
                 <Grid item xs={1.5}>
@@ -19,6 +19,7 @@ import {
 } from "@mui/material";
 import App from "../App.jsx";
 import { API_ENDPOINT } from "../config";
+import { fetchAllPages } from "../paging";
 import AddModule from "./AddModule";
 
 function Modules() {
@@ -35,10 +36,9 @@ function Modules() {
   }, []);
 
   function updateModules() {
-    axios
-      .get(`${API_ENDPOINT}/modules`)
-      .then((response) => {
-        setModules(response.data._embedded.modules);
+    fetchAllPages("/modules/view")
+      .then((modules) => {
+        setModules(modules);
       })
       .catch((response) => {
         setError(response.message);
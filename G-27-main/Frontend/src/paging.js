@@ -0,0 +1,19 @@
+import axios from "axios";
+import { API_ENDPOINT } from "./config";
+
+const PAGE_SIZE = 500;
+
+// Follows the cursor of a keyset-paginated list (such as /students/view) until the last page,
+// so each request stays within the server's maximum page size
+export async function fetchAllPages(path) {
+  const rows = [];
+  let after;
+  do {
+    const { data } = await axios.get(`${API_ENDPOINT}${path}`, {
+      params: { size: PAGE_SIZE, after },
+    });
+    rows.push(...data.content);
+    after = data.nextCursor;
+  } while (after !== null && after !== undefined);
+  return rows;
+}
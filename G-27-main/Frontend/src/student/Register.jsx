@@ -9,6 +9,7 @@ import {
   Alert,
 } from "@mui/material";
 import { API_ENDPOINT } from "../config";
+import { fetchAllPages } from "../paging";
 
 function Register({ studentId, onRegister }) {
   const [module, setModule] = React.useState({});
@@ -17,9 +18,8 @@ function Register({ studentId, onRegister }) {
 
   React.useEffect(() => {
     setError(null);
-    axios
-      .get(`${API_ENDPOINT}/modules`)
-      .then((response) => setModules(response.data._embedded.modules))
+    fetchAllPages("/modules/view")
+      .then((modules) => setModules(modules))
       .catch((response) => setError(response.message));
   }, []);
 
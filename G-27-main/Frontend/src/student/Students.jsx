@@ -4,6 +4,7 @@ import axios from "axios";
 import { Breadcrumbs, Link, Typography, Alert, Grid, Button, TextField, Table, TableBody, TableCell, TableContainer, TableHead, TableRow, TablePagination } from "@mui/material";
 import App from "../App";
 import { API_ENDPOINT } from "../config";
+import { fetchAllPages } from "../paging";
 import AddStudent from "./AddStudent";
 
 
@@ -33,10 +34,9 @@ function Students() {
 
   function updateStudents() {
     setError(null);
-    axios
-      .get(`${API_ENDPOINT}/students`)
-      .then((response) => {
-        setStudents(response.data._embedded.students);
+    fetchAllPages("/students/view")
+      .then((students) => {
+        setStudents(students);
       })
       .catch((response) => {
         setError(response.message);